@@ -0,0 +1,103 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.DataSet.SyntheticDataGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Shared fixtures for the benchmarks.
+ *
+ * Datasets are scaled up from the bundled mushroom.csv by the SyntheticDataGenerator with a fixed
+ * seed, so every run (and every machine) benchmarks exactly the same file. Generated files are cached
+ * under java.io.tmpdir and reused between forks. The 10M row dataset needs a heap of roughly
+ * 12 GB once loaded, pass -jvmArgs -Xmx12g (or restrict -p rows=...) accordingly.
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 42L;
+
+    public static final List<String> ALL_ATTRIBUTES = MushroomDataSet.ATTRIBUTES;
+
+    private static final Path CACHE_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "decision-tree-bench");
+
+    private BenchmarkData() {
+    }
+
+    // Returns the path of a CSV dataset with the given number of rows, generating it on first use
+    public static Path scaledDataset(int rows) {
+        return dataset(rows, "csv");
+    }
+
+    // Returns the path of a columnar dataset with the given number of rows, generating it on first use
+    public static Path scaledColumnarDataset(int rows) {
+        return dataset(rows, "columnar");
+    }
+
+    private static synchronized Path dataset(int rows, String format) {
+        Path target = CACHE_DIR.resolve("synthetic-" + rows + "." + format);
+        if (Files.exists(target)) {
+            return target;
+        }
+        try {
+            Files.createDirectories(CACHE_DIR);
+            Path tmp = Files.createTempFile(CACHE_DIR, "synthetic-" + rows, ".tmp");
+            SyntheticDataGenerator generator = SyntheticDataGenerator.learn(bundledData());
+            if (format.equals("columnar")) {
+                generator.writeColumnar(tmp, rows, SEED);
+            } else {
+                generator.writeCsv(tmp, rows, SEED);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Loads a scaled dataset and splits it with a fixed seed, so the split is reproducible
+    public static Split load(int rows, double trainRatio) {
+        MushroomDataSet dataSet = new MushroomDataSet();
+        try {
+            dataSet.loadData(scaledDataset(rows));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dataSet.splitTrainingTest(trainRatio, SEED);
+        return new Split(dataSet.getTrainingData(), dataSet.getTestData());
+    }
+
+    public static final class Split {
+        public final List<Mushroom> training;
+        public final List<Mushroom> test;
+
+        Split(List<Mushroom> training, List<Mushroom> test) {
+            this.training = training;
+            this.test = test;
+        }
+    }
+
+    private static List<Mushroom> bundledData() throws IOException {
+        InputStream in = MushroomDataSet.class.getResourceAsStream("/mushroom.csv");
+        if (in == null) {
+            throw new IOException("mushroom.csv not found on the classpath");
+        }
+        Path copy = Files.createTempFile(CACHE_DIR, "mushroom-source", ".csv");
+        try (in) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            MushroomDataSet dataSet = new MushroomDataSet();
+            dataSet.loadData(copy);
+            return dataSet.getFullData();
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+}
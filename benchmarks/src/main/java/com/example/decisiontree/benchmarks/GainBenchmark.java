@@ -0,0 +1,48 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Metrics.GainCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the split scoring functions on a full dataset for a low and a high cardinality attribute.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GainBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"BRUISES", "GILL-COLOR"})
+    public String attribute;
+
+    private List<Mushroom> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.load(rows, 1.0).training;
+    }
+
+    @Benchmark
+    public double infoGain() {
+        return GainCalculator.calculateInfoGain(data, attribute);
+    }
+
+    @Benchmark
+    public double gainRatio() {
+        return GainCalculator.calculateGainRatio(data, attribute);
+    }
+
+    @Benchmark
+    public double gini() {
+        return GainCalculator.calculateGini(data, attribute);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MushroomDataSet.loadData and loadColumnar on the scaled datasets.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Path file;
+    private Path columnarFile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = BenchmarkData.scaledDataset(rows);
+        columnarFile = BenchmarkData.scaledColumnarDataset(rows);
+    }
+
+    @Benchmark
+    public List<?> loadData() throws IOException {
+        MushroomDataSet dataSet = new MushroomDataSet();
+        dataSet.loadData(file);
+        return dataSet.getFullData();
+    }
+
+    @Benchmark
+    public List<?> loadColumnar() throws IOException {
+        MushroomDataSet dataSet = new MushroomDataSet();
+        dataSet.loadColumnar(columnarFile);
+        return dataSet.getFullData();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Metrics.AccuracyMetrics;
+import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.LookupTableClassifier;
+import com.example.decisiontree.Tree.PredictionCache;
+import com.example.decisiontree.Tree.Predictor;
+import com.example.decisiontree.Tree.TreeCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single-record prediction latency and full test-set evaluation for the plain tree and
+ * each of its derived predictors.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PredictBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"tree", "cache", "table", "compiled"})
+    public String predictorType;
+
+    private List<Mushroom> test;
+    private Predictor predictor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.Split split = BenchmarkData.load(rows, 0.7);
+        test = split.test;
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(split.training, BenchmarkData.ALL_ATTRIBUTES, false);
+        predictor = switch (predictorType) {
+            case "cache" -> new PredictionCache(tree, 1 << 16);
+            // Fails the trial when the trained tree is too wide for a dense table
+            case "table" -> LookupTableClassifier.compile(tree);
+            case "compiled" -> TreeCompiler.compile(tree);
+            default -> tree;
+        };
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String predict(Cursor cursor) {
+        Mushroom record = test.get(cursor.next);
+        cursor.next = (cursor.next + 1 == test.size()) ? 0 : cursor.next + 1;
+        return predictor.predict(record);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AccuracyMetrics.Results evaluate() {
+        return AccuracyMetrics.evaluate(predictor, test);
+    }
+}
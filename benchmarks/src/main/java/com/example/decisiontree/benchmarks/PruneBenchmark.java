@@ -0,0 +1,47 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Tree.DecisionTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DecisionTree.prune against the held-out part of a 70/30 split.
+ * Pruning mutates the tree, so a fresh tree is built (outside the measurement) before every shot.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PruneBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private List<Mushroom> training;
+    private List<Mushroom> validation;
+    private DecisionTree tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.Split split = BenchmarkData.load(rows, 0.7);
+        training = split.training;
+        validation = split.test;
+    }
+
+    @Setup(Level.Invocation)
+    public void buildTree() {
+        tree = new DecisionTree();
+        tree.buildTree(training, BenchmarkData.ALL_ATTRIBUTES, false);
+    }
+
+    @Benchmark
+    public DecisionTree prune() {
+        tree.prune(validation);
+        return tree;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.decisiontree.benchmarks;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.Tree.DecisionTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures DecisionTree.buildTree on the training part of a 70/30 split.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"INFO_GAIN", "GAIN_RATIO", "GINI", "CHI_SQUARE"})
+    public String criterion;
+
+    private List<Mushroom> training;
+    private SplitCriterion splitCriterion;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        training = BenchmarkData.load(rows, 0.7).training;
+        splitCriterion = switch (criterion) {
+            case "GAIN_RATIO" -> SplitCriterion.GAIN_RATIO;
+            case "GINI" -> SplitCriterion.GINI;
+            case "CHI_SQUARE" -> SplitCriterion.CHI_SQUARE;
+            default -> SplitCriterion.INFO_GAIN;
+        };
+    }
+
+    @Benchmark
+    public DecisionTree buildTree() {
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(training, BenchmarkData.ALL_ATTRIBUTES, splitCriterion);
+        return tree;
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.decisiontree.DataSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Categorical dataset with a header-defined schema and compact per-column storage.
+ *
+ * Every attribute column is dictionary-encoded into a char array of codes, and the labels into a
+ * byte array of class indexes, so a row costs two bytes per attribute plus one for the label.
+ * {@link #getRecords()} exposes the rows as {@link Mushroom} views onto that storage, which is
+ * what the rest of the engine consumes. Label values are numbered in the given order, or in
+ * order of first appearance, and are held by the {@link Schema}; up to {@link #MAX_LABEL_VALUES}
+ * classes fit the byte codes.
+ *
+ * Columns declared numeric are parsed as doubles while loading and then cut into at most maxBins
+ * quantile bins, computed once over the whole column. From then on they are stored like any other
+ * column, as codes of the bin labels defined by the {@link Schema}, so numeric attributes cost the
+ * same as categorical ones in training. Values that do not parse as numbers count as missing.
+ */
+public class CategoricalDataSet {
+
+    public static final int MAX_LABEL_VALUES = 256;
+    public static final int DEFAULT_MAX_BINS = 32;
+    // Bins plus the missing value must fit the 64-bit value masks of binary splits
+    public static final int MAX_BINS = Long.SIZE - 1;
+    private static final int MAX_DICTIONARY_SIZE = Character.MAX_VALUE + 1;
+
+    private final Schema schema;
+    private final String[][] dictionaries;
+    private final List<Map<String, Character>> codes = new ArrayList<>();
+    private char[][] columns;
+    private byte[] classes;
+    private int size;
+    private List<Mushroom> records;
+
+    // Raw values of numeric columns until they are binned
+    private final boolean[] numeric;
+    private final double[][] rawValues;
+    private final int maxBins;
+    private boolean binned;
+
+    /**
+     * Options for reading a dataset: the label numbering, header renames and which columns are
+     * numeric. Numeric columns not present in the header are ignored.
+     */
+    public static class LoadOptions {
+        private List<String> labelValues = List.of();
+        private Map<String, String> aliases = Map.of();
+        private Set<String> numericColumns = Set.of();
+        private int maxBins = DEFAULT_MAX_BINS;
+
+        public List<String> getLabelValues() {
+            return labelValues;
+        }
+
+        // Label values in class index order; others are numbered in order of first appearance
+        public void setLabelValues(List<String> labelValues) {
+            this.labelValues = labelValues;
+        }
+
+        public Map<String, String> getAliases() {
+            return aliases;
+        }
+
+        // Header names to rename, e.g. to correct a misspelled column
+        public void setAliases(Map<String, String> aliases) {
+            this.aliases = aliases;
+        }
+
+        public Set<String> getNumericColumns() {
+            return numericColumns;
+        }
+
+        public void setNumericColumns(Set<String> numericColumns) {
+            this.numericColumns = numericColumns;
+        }
+
+        public int getMaxBins() {
+            return maxBins;
+        }
+
+        public void setMaxBins(int maxBins) {
+            if (maxBins < 2 || maxBins > MAX_BINS) {
+                throw new IllegalArgumentException("maxBins must be between 2 and " + MAX_BINS);
+            }
+            this.maxBins = maxBins;
+        }
+    }
+
+    public CategoricalDataSet(Schema schema) {
+        this(schema, List.of());
+    }
+
+    public CategoricalDataSet(Schema schema, List<String> labelValues) {
+        this(schema, options(labelValues, Map.of()));
+    }
+
+    public CategoricalDataSet(Schema schema, LoadOptions options) {
+        this.schema = schema;
+        int attributeCount = schema.getAttributeCount();
+        this.dictionaries = new String[attributeCount][];
+        this.columns = new char[attributeCount][16];
+        this.classes = new byte[16];
+        this.numeric = new boolean[attributeCount];
+        this.rawValues = new double[attributeCount][];
+        this.maxBins = options.getMaxBins();
+        for (int a = 0; a < attributeCount; a++) {
+            dictionaries[a] = new String[8];
+            codes.add(new HashMap<>());
+        }
+        for (String column : options.getNumericColumns()) {
+            int a = schema.indexOf(options.getAliases().getOrDefault(column, column));
+            if (a >= 0) {
+                numeric[a] = true;
+                rawValues[a] = new double[16];
+            }
+        }
+        for (String label : options.getLabelValues()) {
+            labelCode(label);
+        }
+    }
+
+    private static LoadOptions options(List<String> labelValues, Map<String, String> aliases) {
+        LoadOptions options = new LoadOptions();
+        options.setLabelValues(labelValues);
+        options.setAliases(aliases);
+        return options;
+    }
+
+    /**
+     * Reads a CSV file whose first line names the columns. The label column may be at any
+     * position; rows shorter than the header are padded with missing values.
+     */
+    public static CategoricalDataSet readCsv(Path filePath, String labelColumn) throws IOException {
+        return readCsv(filePath, labelColumn, new LoadOptions());
+    }
+
+    /**
+     * Reads a CSV file with fixed label numbering and header names renamed through aliases,
+     * e.g. to correct a misspelled column.
+     */
+    public static CategoricalDataSet readCsv(Path filePath, String labelColumn, List<String> labelValues,
+                                             Map<String, String> aliases) throws IOException {
+        return readCsv(filePath, labelColumn, options(labelValues, aliases));
+    }
+
+    public static CategoricalDataSet readCsv(Path filePath, String labelColumn, LoadOptions options) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+            return readCsv(reader, filePath.toString(), labelColumn, options);
+        }
+    }
+
+    /**
+     * Reads CSV text from a stream, e.g. a classpath resource, which has no file path once it is
+     * packaged in a jar. The name is only used in error messages; the stream is left open.
+     */
+    public static CategoricalDataSet readCsv(InputStream in, String name, String labelColumn, List<String> labelValues,
+                                             Map<String, String> aliases) throws IOException {
+        return readCsv(in, name, labelColumn, options(labelValues, aliases));
+    }
+
+    public static CategoricalDataSet readCsv(InputStream in, String name, String labelColumn, LoadOptions options) throws IOException {
+        return readCsv(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), name, labelColumn, options);
+    }
+
+    private static CategoricalDataSet readCsv(BufferedReader reader, String name, String labelColumn, LoadOptions options) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IOException("Missing header row in " + name);
+        }
+        String[] header = headerLine.split(",");
+        int labelIndex = labelIndex(header, labelColumn);
+        CategoricalDataSet dataSet = new CategoricalDataSet(Schema.fromHeader(header, labelColumn, options.getAliases()), options);
+
+        String[] values = new String[header.length - 1];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] tokens = line.split(",");
+            if (tokens.length <= labelIndex || tokens[labelIndex].isBlank()) {
+                // Nothing to learn from a row without a label
+                continue;
+            }
+            int v = 0;
+            for (int c = 0; c < header.length; c++) {
+                if (c != labelIndex) {
+                    values[v++] = c < tokens.length ? tokens[c] : null;
+                }
+            }
+            dataSet.add(tokens[labelIndex], values);
+        }
+        dataSet.binNumericColumns();
+        return dataSet;
+    }
+
+    /**
+     * Reads a binary columnar file written by {@link ColumnarFile.Writer}. The column names
+     * stored in the file define the schema, with labelColumn as the label.
+     */
+    public static CategoricalDataSet readColumnar(Path filePath, String labelColumn, List<String> labelValues,
+                                                  Map<String, String> aliases) throws IOException {
+        return readColumnar(filePath, labelColumn, options(labelValues, aliases));
+    }
+
+    public static CategoricalDataSet readColumnar(Path filePath, String labelColumn, LoadOptions options) throws IOException {
+        CategoricalDataSet[] dataSet = new CategoricalDataSet[1];
+        int[] labelIndex = new int[1];
+        String[][] values = new String[1][];
+        ColumnarFile.read(filePath, header -> {
+            labelIndex[0] = labelIndex(header, labelColumn);
+            dataSet[0] = new CategoricalDataSet(Schema.fromHeader(header, labelColumn, options.getAliases()), options);
+            values[0] = new String[header.length - 1];
+        }, tokens -> {
+            int v = 0;
+            for (int c = 0; c < tokens.length; c++) {
+                if (c != labelIndex[0]) {
+                    values[0][v++] = tokens[c];
+                }
+            }
+            dataSet[0].add(tokens[labelIndex[0]], values[0]);
+        });
+        dataSet[0].binNumericColumns();
+        return dataSet[0];
+    }
+
+    private static int labelIndex(String[] header, String labelColumn) {
+        for (int c = 0; c < header.length; c++) {
+            if (header[c].trim().equalsIgnoreCase(labelColumn)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Header has no label column " + labelColumn);
+    }
+
+    // Maps the spellings of a missing value to Mushroom.MISSING
+    public static String normalizeValue(String token) {
+        if (token == null || token.isEmpty() || token.equals("?") || token.equalsIgnoreCase("NA")) {
+            return Mushroom.MISSING;
+        }
+        return token;
+    }
+
+    // Appends a row; values are in schema order and may be null or shorter than the schema for missing values
+    public void add(String label, String[] values) {
+        if (size == classes.length) {
+            int capacity = size + (size >> 1);
+            classes = Arrays.copyOf(classes, capacity);
+            for (int a = 0; a < columns.length; a++) {
+                columns[a] = Arrays.copyOf(columns[a], capacity);
+                if (rawValues[a] != null) {
+                    rawValues[a] = Arrays.copyOf(rawValues[a], capacity);
+                }
+            }
+        }
+        classes[size] = (byte) labelCode(label.trim());
+        for (int a = 0; a < columns.length; a++) {
+            String value = normalizeValue(a < values.length ? values[a] : null);
+            if (!numeric[a]) {
+                columns[a][size] = valueCode(a, value);
+            } else if (binned) {
+                columns[a][size] = valueCode(a, binLabel(a, numberOf(value)));
+            } else {
+                rawValues[a][size] = numberOf(value);
+            }
+        }
+        size++;
+    }
+
+    private static double numberOf(String value) {
+        return value == Mushroom.MISSING ? Double.NaN : Schema.parseNumber(value);
+    }
+
+    private String binLabel(int attribute, double value) {
+        return Double.isNaN(value) ? Mushroom.MISSING : schema.getBinLabels(attribute).get(schema.binOf(attribute, value));
+    }
+
+    /**
+     * Computes the quantile bins of every numeric column from the rows added so far and encodes
+     * the column as bin codes. Rows added later are binned with the same edges. Called by the
+     * readers; accessors call it on first use for datasets filled through add().
+     */
+    public void binNumericColumns() {
+        if (binned) {
+            return;
+        }
+        binned = true;
+        for (int a = 0; a < columns.length; a++) {
+            if (!numeric[a]) {
+                continue;
+            }
+            schema.setBinEdges(a, quantileEdges(rawValues[a], size, maxBins));
+            for (String label : schema.getBinLabels(a)) {
+                valueCode(a, label);
+            }
+            for (int r = 0; r < size; r++) {
+                columns[a][r] = valueCode(a, binLabel(a, rawValues[a][r]));
+            }
+            rawValues[a] = null;
+        }
+    }
+
+    // Upper edges of up to maxBins bins holding roughly equal numbers of the non-missing values
+    private static double[] quantileEdges(double[] values, int count, int maxBins) {
+        double[] sorted = new double[count];
+        int n = 0;
+        for (int r = 0; r < count; r++) {
+            if (!Double.isNaN(values[r])) {
+                sorted[n++] = values[r];
+            }
+        }
+        Arrays.sort(sorted, 0, n);
+        double[] edges = new double[maxBins - 1];
+        int edgeCount = 0;
+        for (int b = 1; b < maxBins; b++) {
+            int rank = (int) ((long) b * n / maxBins);
+            if (rank == 0) {
+                continue;
+            }
+            double edge = sorted[rank - 1];
+            // Skip duplicate edges and never cut above the maximum, so every bin can be non-empty
+            if (edge < sorted[n - 1] && (edgeCount == 0 || edge > edges[edgeCount - 1])) {
+                edges[edgeCount++] = edge;
+            }
+        }
+        return Arrays.copyOf(edges, edgeCount);
+    }
+
+    private int labelCode(String label) {
+        int code = schema.classIndexOf(label);
+        if (code < 0) {
+            if (schema.getLabelValues().size() == MAX_LABEL_VALUES) {
+                throw new IllegalArgumentException("Label column " + schema.getLabelColumn() + " has more than "
+                        + MAX_LABEL_VALUES + " values");
+            }
+            code = schema.registerLabel(label);
+        }
+        return code;
+    }
+
+    private char valueCode(int attribute, String value) {
+        Map<String, Character> dictionary = codes.get(attribute);
+        Character code = dictionary.get(value);
+        if (code == null) {
+            int next = dictionary.size();
+            if (next == MAX_DICTIONARY_SIZE) {
+                throw new IllegalArgumentException("Column " + schema.getAttributes().get(attribute)
+                        + " has more than " + MAX_DICTIONARY_SIZE + " distinct values");
+            }
+            if (next == dictionaries[attribute].length) {
+                dictionaries[attribute] = Arrays.copyOf(dictionaries[attribute], next * 2);
+            }
+            dictionaries[attribute][next] = value;
+            code = (char) next;
+            dictionary.put(value, code);
+        }
+        return code;
+    }
+
+    public Schema getSchema() {
+        binNumericColumns();
+        return schema;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Label values in class index order
+    public List<String> getLabelValues() {
+        return schema.getLabelValues();
+    }
+
+    public int getClassIndex(int row) {
+        return classes[row] & 0xFF;
+    }
+
+    public int getCode(int row, int attribute) {
+        binNumericColumns();
+        return columns[attribute][row];
+    }
+
+    public String getValue(int row, int attribute) {
+        binNumericColumns();
+        return dictionaries[attribute][columns[attribute][row]];
+    }
+
+    // Distinct values of the attribute in code order; numeric attributes list their bins in order
+    public List<String> getDictionary(int attribute) {
+        binNumericColumns();
+        return Arrays.asList(dictionaries[attribute]).subList(0, codes.get(attribute).size());
+    }
+
+    /**
+     * The rows as records backed by this dataset's columns. The list is created once and reused;
+     * rows added afterwards are not part of it.
+     */
+    public List<Mushroom> getRecords() {
+        binNumericColumns();
+        if (records == null || records.size() != size) {
+            Mushroom[] rows = new Mushroom[size];
+            for (int r = 0; r < size; r++) {
+                rows[r] = new Row(r);
+            }
+            records = new RecordList(rows);
+        }
+        return records;
+    }
+
+    // The dataset the record is a row of, or null for a record that holds its own values
+    public static CategoricalDataSet sourceOf(Mushroom record) {
+        return record instanceof Row row ? row.dataSet() : null;
+    }
+
+    // Index of the record among this dataset's rows, or -1 if it is not one of them
+    public int rowOf(Mushroom record) {
+        return record instanceof Row row && row.dataSet() == this ? row.row : -1;
+    }
+
+    private final class Row extends Mushroom {
+        private final int row;
+
+        Row(int row) {
+            super(schema);
+            this.row = row;
+        }
+
+        CategoricalDataSet dataSet() {
+            return CategoricalDataSet.this;
+        }
+
+        @Override
+        public int getClassIndex() {
+            return classes[row] & 0xFF;
+        }
+
+        @Override
+        public String getValue(int index) {
+            return dictionaries[index][columns[index][row]];
+        }
+    }
+
+    private static final class RecordList extends AbstractList<Mushroom> implements RandomAccess {
+        private final Mushroom[] rows;
+
+        RecordList(Mushroom[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Mushroom get(int index) {
+            return rows[index];
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+}
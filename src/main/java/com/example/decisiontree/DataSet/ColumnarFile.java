@@ -0,0 +1,168 @@
+package com.example.decisiontree.DataSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binary columnar file format for categorical data.
+ *
+ * Layout:
+ * <pre>
+ *   int    MAGIC
+ *   int    column count
+ *   per column: UTF name, int dictionary size, UTF value * size
+ *   blocks: int row count (-1 terminates), then per column row-count one-byte value codes
+ * </pre>
+ * Rows are written in blocks so files of any size can be streamed in and out with
+ * memory proportional to a single block.
+ */
+public final class ColumnarFile {
+
+    public static final int MAGIC = 0x44544331; // "DTC1"
+    public static final int BLOCK_ROWS = 64 * 1024;
+    public static final int MAX_DICTIONARY_SIZE = 256;
+
+    private ColumnarFile() {
+    }
+
+    /**
+     * Streams rows into a columnar file. Values are given as codes into the per-column dictionaries.
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final byte[][] block;
+        private int blockRows;
+
+        public Writer(Path filePath, List<String> columns, List<List<String>> dictionaries) throws IOException {
+            this(Files.newOutputStream(filePath), columns, dictionaries);
+        }
+
+        // Writes to the stream, e.g. a request body, closing it on close()
+        public Writer(OutputStream stream, List<String> columns, List<List<String>> dictionaries) throws IOException {
+            if (columns.size() != dictionaries.size()) {
+                stream.close();
+                throw new IllegalArgumentException("One dictionary per column is required");
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            this.block = new byte[columns.size()][BLOCK_ROWS];
+
+            out.writeInt(MAGIC);
+            out.writeInt(columns.size());
+            for (int c = 0; c < columns.size(); c++) {
+                List<String> dictionary = dictionaries.get(c);
+                if (dictionary.size() > MAX_DICTIONARY_SIZE) {
+                    throw new IllegalArgumentException("Column " + columns.get(c) + " has more than "
+                            + MAX_DICTIONARY_SIZE + " distinct values");
+                }
+                out.writeUTF(columns.get(c));
+                out.writeInt(dictionary.size());
+                for (String value : dictionary) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+
+        public void writeRow(int[] codes) throws IOException {
+            for (int c = 0; c < block.length; c++) {
+                block[c][blockRows] = (byte) codes[c];
+            }
+            if (++blockRows == BLOCK_ROWS) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockRows == 0) {
+                return;
+            }
+            out.writeInt(blockRows);
+            for (byte[] column : block) {
+                out.write(column, 0, blockRows);
+            }
+            blockRows = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+                out.writeInt(-1);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a columnar file and hands every row to the consumer as decoded tokens, in column order.
+     * The token array is reused between rows.
+     */
+    public static void read(Path filePath, Consumer<String[]> rowConsumer) throws IOException {
+        read(filePath, columns -> { }, rowConsumer);
+    }
+
+    // Like read(Path, Consumer), handing the column names to columnConsumer before the first row
+    public static void read(Path filePath, Consumer<String[]> columnConsumer, Consumer<String[]> rowConsumer) throws IOException {
+        try (InputStream stream = Files.newInputStream(filePath)) {
+            read(stream, filePath.toString(), columnConsumer, rowConsumer);
+        }
+    }
+
+    // Like read(Path, Consumer, Consumer) from a stream, e.g. a request body; the stream is left open
+    public static void read(InputStream stream, String source, Consumer<String[]> columnConsumer,
+                            Consumer<String[]> rowConsumer) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a columnar data file: " + source);
+        }
+        int columnCount = in.readInt();
+        String[] columns = new String[columnCount];
+        String[][] dictionaries = new String[columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+            columns[c] = in.readUTF();
+            dictionaries[c] = new String[in.readInt()];
+            for (int v = 0; v < dictionaries[c].length; v++) {
+                dictionaries[c][v] = in.readUTF();
+            }
+        }
+
+        columnConsumer.accept(columns);
+
+        // Sized to the largest block read so far, so that small inputs such as single requests stay small
+        byte[][] block = new byte[columnCount][0];
+        int capacity = 0;
+        String[] tokens = new String[columnCount];
+        int rows;
+        while ((rows = in.readInt()) >= 0) {
+            if (rows > BLOCK_ROWS) {
+                throw new IOException("Corrupt block of " + rows + " rows in " + source);
+            }
+            if (rows > capacity) {
+                capacity = rows;
+                for (int c = 0; c < columnCount; c++) {
+                    block[c] = new byte[capacity];
+                }
+            }
+            for (int c = 0; c < columnCount; c++) {
+                in.readFully(block[c], 0, rows);
+            }
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columnCount; c++) {
+                    tokens[c] = dictionaries[c][block[c][r] & 0xFF];
+                }
+                rowConsumer.accept(tokens);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.decisiontree.DataSet;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * A stratified train/validation/test split expressed as index arrays into the original data.
+ *
+ * The source list is never reordered or copied. Each label is shuffled separately with a
+ * seeded SplittableRandom and cut by the requested ratios, so every part keeps the class balance
+ * of the full data and the same seed yields the same split on every run and machine.
+ */
+public class DataSplit {
+
+    private final int[] training;
+    private final int[] validation;
+    private final int[] test;
+
+    private DataSplit(int[] training, int[] validation, int[] test) {
+        this.training = training;
+        this.validation = validation;
+        this.test = test;
+    }
+
+    /**
+     * Splits the data into stratified training, validation and test parts. The test part gets
+     * whatever remains after the training and validation ratios.
+     */
+    public static DataSplit stratified(List<Mushroom> data, double trainRatio, double validationRatio, long seed) {
+        if (trainRatio < 0 || validationRatio < 0 || trainRatio + validationRatio > 1.0) {
+            throw new IllegalArgumentException("Ratios must be non-negative and add up to at most 1");
+        }
+
+        int[][] byClass = indicesByClass(data);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int[] indices : byClass) {
+            shuffle(indices, random);
+        }
+
+        int[][] training = new int[byClass.length][];
+        int[][] validation = new int[byClass.length][];
+        int[][] test = new int[byClass.length][];
+        for (int c = 0; c < byClass.length; c++) {
+            int[] indices = byClass[c];
+            int trainEnd = (int) (indices.length * trainRatio);
+            int validationEnd = trainEnd + (int) (indices.length * validationRatio);
+            training[c] = Arrays.copyOfRange(indices, 0, trainEnd);
+            validation[c] = Arrays.copyOfRange(indices, trainEnd, validationEnd);
+            test[c] = Arrays.copyOfRange(indices, validationEnd, indices.length);
+        }
+
+        // Interleave the classes so consumers of a prefix still see a mixed sample
+        int[] trainingIndices = concat(training);
+        int[] validationIndices = concat(validation);
+        int[] testIndices = concat(test);
+        shuffle(trainingIndices, random);
+        shuffle(validationIndices, random);
+        shuffle(testIndices, random);
+        return new DataSplit(trainingIndices, validationIndices, testIndices);
+    }
+
+    // Indices of the records of each class, in data order
+    private static int[][] indicesByClass(List<Mushroom> data) {
+        int[] classCounts = new int[data.isEmpty() ? 0 : data.get(0).getSchema().getClassCount()];
+        for (Mushroom record : data) {
+            int c = record.getClassIndex();
+            if (c >= classCounts.length) {
+                classCounts = Arrays.copyOf(classCounts, c + 1);
+            }
+            classCounts[c]++;
+        }
+        int[][] byClass = new int[classCounts.length][];
+        for (int c = 0; c < classCounts.length; c++) {
+            byClass[c] = new int[classCounts[c]];
+        }
+        int[] filled = new int[classCounts.length];
+        for (int i = 0; i < data.size(); i++) {
+            int c = data.get(i).getClassIndex();
+            byClass[c][filled[c]++] = i;
+        }
+        return byClass;
+    }
+
+    public int[] getTrainingIndices() {
+        return training;
+    }
+
+    public int[] getValidationIndices() {
+        return validation;
+    }
+
+    public int[] getTestIndices() {
+        return test;
+    }
+
+    public List<Mushroom> training(List<Mushroom> data) {
+        return view(data, training);
+    }
+
+    public List<Mushroom> validation(List<Mushroom> data) {
+        return view(data, validation);
+    }
+
+    public List<Mushroom> test(List<Mushroom> data) {
+        return view(data, test);
+    }
+
+    /**
+     * Returns a read-only list backed by the given indices into data. Unlike subList views it
+     * stays valid when records are appended to data.
+     */
+    public static <T> List<T> view(List<T> data, int[] indices) {
+        return new IndexedView<>(data, indices);
+    }
+
+    private static void shuffle(int[] values, SplittableRandom random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    private static int[] concat(int[][] parts) {
+        int length = 0;
+        for (int[] part : parts) {
+            length += part.length;
+        }
+        int[] result = new int[length];
+        int position = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private static final class IndexedView<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> data;
+        private final int[] indices;
+
+        IndexedView(List<T> data, int[] indices) {
+            this.data = data;
+            this.indices = indices;
+        }
+
+        @Override
+        public T get(int index) {
+            return data.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+
+    /**
+     * Stratified reservoir sample over a stream of unknown length. Each label keeps its own
+     * reservoir of up to sampleSize records; the final sample takes from each reservoir in
+     * proportion to how often that label was seen, so the class balance of the stream is kept.
+     */
+    public static class Reservoir {
+
+        private final int sampleSize;
+        private final SplittableRandom random;
+        // One reservoir and seen count per class index, grown as classes appear
+        private final List<Mushroom[]> reservoirs = new ArrayList<>();
+        private long[] seen = new long[0];
+
+        public Reservoir(int sampleSize, long seed) {
+            this.sampleSize = sampleSize;
+            this.random = new SplittableRandom(seed);
+        }
+
+        public void offer(Mushroom record) {
+            int c = record.getClassIndex();
+            while (reservoirs.size() <= c) {
+                reservoirs.add(new Mushroom[sampleSize]);
+            }
+            if (c >= seen.length) {
+                seen = Arrays.copyOf(seen, c + 1);
+            }
+            offer(reservoirs.get(c), seen[c]++, record);
+        }
+
+        public void offerAll(Iterator<Mushroom> records) {
+            while (records.hasNext()) {
+                offer(records.next());
+            }
+        }
+
+        private void offer(Mushroom[] reservoir, long seenBefore, Mushroom record) {
+            if (seenBefore < sampleSize) {
+                reservoir[(int) seenBefore] = record;
+            } else {
+                long slot = random.nextLong(seenBefore + 1);
+                if (slot < sampleSize) {
+                    reservoir[(int) slot] = record;
+                }
+            }
+        }
+
+        // Returns up to sampleSize records with the label proportions of everything offered so far
+        public List<Mushroom> sample() {
+            long seenTotal = 0;
+            for (long count : seen) {
+                seenTotal += count;
+            }
+            if (seenTotal == 0) {
+                return new ArrayList<>();
+            }
+            int total = (int) Math.min(sampleSize, seenTotal);
+            int[] fromClass = new int[seen.length];
+            int taken = 0;
+            int last = seen.length - 1;
+            for (int c = 0; c < seen.length; c++) {
+                int share = c == last ? total - taken : (int) Math.round((double) total * seen[c] / seenTotal);
+                fromClass[c] = (int) Math.min(Math.min(share, total - taken), Math.min(seen[c], sampleSize));
+                taken += fromClass[c];
+            }
+
+            List<Mushroom> sample = new ArrayList<>(taken);
+            for (int c = 0; c < seen.length; c++) {
+                draw(reservoirs.get(c), (int) Math.min(seen[c], sampleSize), fromClass[c], sample);
+            }
+            return sample;
+        }
+
+        // Partial Fisher-Yates: moves count random entries of the filled reservoir to its front
+        private void draw(Mushroom[] reservoir, int filled, int count, List<Mushroom> sample) {
+            for (int i = 0; i < count; i++) {
+                int j = i + random.nextInt(filled - i);
+                Mushroom tmp = reservoir[i];
+                reservoir[i] = reservoir[j];
+                reservoir[j] = tmp;
+                sample.add(reservoir[i]);
+            }
+        }
+    }
+}
@@ -1,265 +1,91 @@
 package com.example.decisiontree.DataSet;
 
+/**
+ * A labelled categorical record. The attribute values are laid out by the record's {@link Schema};
+ * records of a {@link CategoricalDataSet} are views onto its column storage.
+ */
 public class Mushroom {
 
-    private  boolean edible;
-    private  String capShape;
-    private  String capSurface;
-    private  String capColor;
-    private  String bruises;
-    private  String odor;
-    private  String gillAttachment;
-    private  String gillSpacing;
-    private  String gillSize;
-    private  String gillColor;
-    private  String stalkShape;
-    private  String stalkRoot;
-    private  String stalkSurfaceAboveRing;
-    private  String stalkSurfaceBelowRing;
-    private  String stalkColorAboveRing;
-    private  String stalkColorBelowRing;
-    private  String veilType;
-    private  String veilColor;
-    private  String ringNumber;
-    private  String ringType;
-    private  String sporePrintColor;
-    private  String population;
-    private  String habitat;
+    // Sentinel stored for attribute values missing from the input ("?", "NA" or empty)
+    public static final String MISSING = "?";
 
-    public Mushroom(boolean edible,
-                          String capShape,
-                          String capSurface,
-                          String capColor,
-                          String bruises,
-                          String odor,
-                          String gillAttachment,
-                          String gillSpacing,
-                          String gillSize,
-                          String gillColor,
-                          String stalkShape,
-                          String stalkRoot,
-                          String stalkSurfaceAboveRing,
-                          String stalkSurfaceBelowRing,
-                          String stalkColorAboveRing,
-                          String stalkColorBelowRing,
-                          String veilType,
-                          String veilColor,
-                          String ringNumber,
-                          String ringType,
-                          String sporePrintColor,
-                          String population,
-                          String habitat) {
-        this.edible = edible;
-        this.capShape = capShape;
-        this.capSurface = capSurface;
-        this.capColor = capColor;
-        this.bruises = bruises;
-        this.odor = odor;
-        this.gillAttachment = gillAttachment;
-        this.gillSpacing = gillSpacing;
-        this.gillSize = gillSize;
-        this.gillColor = gillColor;
-        this.stalkShape = stalkShape;
-        this.stalkRoot = stalkRoot;
-        this.stalkSurfaceAboveRing = stalkSurfaceAboveRing;
-        this.stalkSurfaceBelowRing = stalkSurfaceBelowRing;
-        this.stalkColorAboveRing = stalkColorAboveRing;
-        this.stalkColorBelowRing = stalkColorBelowRing;
-        this.veilType = veilType;
-        this.veilColor = veilColor;
-        this.ringNumber = ringNumber;
-        this.ringType = ringType;
-        this.sporePrintColor = sporePrintColor;
-        this.population = population;
-        this.habitat = habitat;
-    }
-
-    public Mushroom() {
-
-    }
-
-    public boolean isEdible() {
-        return edible;
-    }
-
-    public void setEdible(boolean edible) {
-        this.edible = edible;
-    }
-
-    public String getCapShape() {
-        return capShape;
-    }
-
-    public void setCapShape(String capShape) {
-        this.capShape = capShape;
-    }
-
-    public String getCapSurface() {
-        return capSurface;
-    }
-
-    public void setCapSurface(String capSurface) {
-        this.capSurface = capSurface;
-    }
-
-    public String getCapColor() {
-        return capColor;
-    }
-
-    public void setCapColor(String capColor) {
-        this.capColor = capColor;
-    }
-
-    public String getBruises() {
-        return bruises;
-    }
-
-    public void setBruises(String bruises) {
-        this.bruises = bruises;
-    }
-
-    public String getOdor() {
-        return odor;
-    }
-
-    public void setOdor(String odor) {
-        this.odor = odor;
-    }
-
-    public String getGillAttachment() {
-        return gillAttachment;
-    }
-
-    public void setGillAttachment(String gillAttachment) {
-        this.gillAttachment = gillAttachment;
-    }
-
-    public String getGillSpacing() {
-        return gillSpacing;
-    }
-
-    public void setGillSpacing(String gillSpacing) {
-        this.gillSpacing = gillSpacing;
-    }
-
-    public String getGillSize() {
-        return gillSize;
-    }
-
-    public void setGillSize(String gillSize) {
-        this.gillSize = gillSize;
-    }
-
-    public String getGillColor() {
-        return gillColor;
-    }
-
-    public void setGillColor(String gillColor) {
-        this.gillColor = gillColor;
-    }
-
-    public String getStalkShape() {
-        return stalkShape;
-    }
-
-    public void setStalkShape(String stalkShape) {
-        this.stalkShape = stalkShape;
-    }
-
-    public String getStalkRoot() {
-        return stalkRoot;
-    }
-
-    public void setStalkRoot(String stalkRoot) {
-        this.stalkRoot = stalkRoot;
-    }
-
-    public String getStalkSurfaceAboveRing() {
-        return stalkSurfaceAboveRing;
-    }
-
-    public void setStalkSurfaceAboveRing(String stalkSurfaceAboveRing) {
-        this.stalkSurfaceAboveRing = stalkSurfaceAboveRing;
-    }
+    public static final int EDIBLE = 0;
+    public static final int POISONOUS = 1;
 
-    public String getStalkSurfaceBelowRing() {
-        return stalkSurfaceBelowRing;
-    }
-
-    public void setStalkSurfaceBelowRing(String stalkSurfaceBelowRing) {
-        this.stalkSurfaceBelowRing = stalkSurfaceBelowRing;
-    }
-
-    public String getStalkColorAboveRing() {
-        return stalkColorAboveRing;
-    }
+    private final Schema schema;
+    private final int classIndex;
+    private final String[] values;
 
-    public void setStalkColorAboveRing(String stalkColorAboveRing) {
-        this.stalkColorAboveRing = stalkColorAboveRing;
+    // Binary record: class EDIBLE or POISONOUS
+    public Mushroom(Schema schema, boolean edible, String... values) {
+        this(schema, edible ? EDIBLE : POISONOUS, values);
     }
 
-    public String getStalkColorBelowRing() {
-        return stalkColorBelowRing;
+    // Record of the label value, which a schema without fixed label values numbers if it is new
+    public Mushroom(Schema schema, String label, String... values) {
+        this(schema, schema.registerLabel(label), values);
     }
 
-    public void setStalkColorBelowRing(String stalkColorBelowRing) {
-        this.stalkColorBelowRing = stalkColorBelowRing;
+    // Missing values are normalized and numeric values replaced by their bin label under the schema
+    public Mushroom(Schema schema, int classIndex, String... values) {
+        if (classIndex < 0 || classIndex >= schema.getClassCount()) {
+            throw new IllegalArgumentException("Class index " + classIndex + " outside the schema's "
+                    + schema.getClassCount() + " classes");
+        }
+        if (values.length != schema.getAttributeCount()) {
+            throw new IllegalArgumentException("Expected " + schema.getAttributeCount() + " values, got " + values.length);
+        }
+        this.schema = schema;
+        this.classIndex = classIndex;
+        this.values = values.clone();
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = schema.canonicalValue(i, CategoricalDataSet.normalizeValue(values[i]));
+        }
     }
 
-    public String getVeilType() {
-        return veilType;
+    // For records whose values live elsewhere; subclasses override the value and label accessors
+    protected Mushroom(Schema schema) {
+        this.schema = schema;
+        this.classIndex = 0;
+        this.values = null;
     }
 
-    public void setVeilType(String veilType) {
-        this.veilType = veilType;
+    public Schema getSchema() {
+        return schema;
     }
 
-    public String getVeilColor() {
-        return veilColor;
+    // Class index of the label, the position of its value in the schema's label values
+    public int getClassIndex() {
+        return classIndex;
     }
 
-    public void setVeilColor(String veilColor) {
-        this.veilColor = veilColor;
-    }
-
-    public String getRingNumber() {
-        return ringNumber;
-    }
-
-    public void setRingNumber(String ringNumber) {
-        this.ringNumber = ringNumber;
-    }
-
-    public String getRingType() {
-        return ringType;
-    }
-
-    public void setRingType(String ringType) {
-        this.ringType = ringType;
-    }
-
-    public String getSporePrintColor() {
-        return sporePrintColor;
-    }
-
-    public void setSporePrintColor(String sporePrintColor) {
-        this.sporePrintColor = sporePrintColor;
+    // Whether the record has the first class; for mushroom data, EDIBLE
+    public boolean isEdible() {
+        return getClassIndex() == EDIBLE;
     }
 
-    public String getPopulation() {
-        return population;
+    // Label value as it appears in the data
+    public String getLabel() {
+        return schema.labelOf(getClassIndex());
     }
 
-    public void setPopulation(String population) {
-        this.population = population;
+    // Value of the attribute at the given schema position
+    public String getValue(int index) {
+        return values[index];
     }
 
-    public String getHabitat() {
-        return habitat;
+    // Value of the named attribute, or MISSING if the schema has no such attribute
+    public String getValue(String attribute) {
+        int index = schema.indexOf(attribute);
+        return index < 0 ? MISSING : getValue(index);
     }
 
-    public void setHabitat(String habitat) {
-        this.habitat = habitat;
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getLabel());
+        for (int i = 0; i < schema.getAttributeCount(); i++) {
+            sb.append(", ").append(schema.getAttributes().get(i)).append('=').append(getValue(i));
+        }
+        return sb.toString();
     }
-
 }
@@ -1,116 +1,126 @@
 package com.example.decisiontree.DataSet;
 
-import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class MushroomDataSet {
 
+    public static final String LABEL_COLUMN = "EDIBLE";
+    // Classpath resource holding the bundled mushroom data
+    public static final String RESOURCE = "/mushroom.csv";
+    public static final List<String> LABEL_VALUES = List.of("EDIBLE", "POISONOUS");
+
+    // Header spellings corrected on load
+    public static final Map<String, String> ATTRIBUTE_ALIASES = Map.of(
+            "STALK-SRFACE-UNDER-RING", "STALK-SURFACE-BELOW-RING"
+    );
+
+    // Attribute columns of the mushroom data in file order (the label column comes first)
+    public static final Schema SCHEMA = new Schema(LABEL_COLUMN, List.of(
+            "CAP-SHAPE","CAP-SURFACE","CAP-COLOR","BRUISES","ODOR","GILL-ATTACHMENT","GILL-SPACING",
+            "GILL-SIZE","GILL-COLOR","STALK-SHAPE","STALK-ROOT","STALK-SURFACE-ABOVE-RING",
+            "STALK-SURFACE-BELOW-RING","STALK-COLOR-ABOVE-RING","STALK-COLOR-BELOW-RING",
+            "VEIL-TYPE","VEIL-COLOR","RING-NUMBER","RING-TYPE","SPORE-PRINT-COLOR","POPULATION","HABITAT"
+    ), LABEL_VALUES);
+
+    public static final List<String> ATTRIBUTES = SCHEMA.getAttributes();
+
     private final List<Mushroom> fullData = new ArrayList<>();
     private List<Mushroom> trainingData = new ArrayList<>();
+    private List<Mushroom> validationData = new ArrayList<>();
     private List<Mushroom> testData = new ArrayList<>();
+    private Schema schema = SCHEMA;
+    // Seed of the splits that are not given one, or null for a fresh seed each time
+    private Long seed;
 
     /**
-     * Reads the file from the provided path, parses each row into a Mushroom.
-     * Adjust the parsing logic as needed to match your file format.
+     * Reads a CSV file whose header names the columns, with the EDIBLE/POISONOUS label in the
+     * EDIBLE column. The attributes are whatever other columns the header lists.
      */
     public void loadData(Path filePath) throws IOException {
-        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            String headerLine = reader.readLine();
-            // e.g., "EDIBLE\tCAP-SHAPE\tCAP-SURFACE\tCAP-COLOR\t..."
-            // You can store this header or ignore it if you know the columns already.
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Example: 
-                // "EDIBLE CONVEX SMOOTH WHITE BRUISES ALMOND FREE CROWDED NARROW WHITE TAPERING ..."
-                // If your data is tab-separated, use split("\t"). If it's CSV, use split(",")
-                String[] tokens = line.split(",");
-
-                // This example assumes the first column is "EDIBLE" or "POISONOUS".
-                // Then each subsequent column corresponds to the fields in the order described.
-                // You may need to adjust indexes if your file layout is different.
-                // Example data row (indexing them):
-                // [0] -> EDIBLE or POISONOUS
-                // [1] -> CAP-SHAPE
-                // [2] -> CAP-SURFACE
-                // [3] -> CAP-COLOR
-                // [4] -> BRUISES
-                // [5] -> ODOR
-                // [6] -> GILL-ATTACHMENT
-                // [7] -> GILL-SPACING
-                // [8] -> GILL-SIZE
-                // [9] -> GILL-COLOR
-                // [10] -> STALK-SHAPE
-                // [11] -> STALK-ROOT
-                // [12] -> STALK-SURFACE-ABOVE-RING
-                // [13] -> STALK-SRFACE-UNDER-RING
-                // [14] -> STALK-COLOR-ABOVE-RING
-                // [15] -> STALK-COLOR-BELOW-RING
-                // [16] -> VEIL-TYPE
-                // [17] -> VEIL-COLOR
-                // [18] -> RING-NUMBER
-                // [19] -> RING-TYPE
-                // [20] -> SPORE-PRINT-COLOR
-                // [21] -> POPULATION
-                // [22] -> HABITAT
-                // Some versions of the data have an index column at the start, so watch out for that.
-                // If your data has an extra ID at [0], shift everything by 1.
-
-                if (tokens.length < 23) {
-                    // Possibly skip malformed lines or handle differently
-                    continue;
-                }
-
-                boolean isEdible = tokens[0].equalsIgnoreCase("EDIBLE");
-
-                Mushroom record = new Mushroom(
-                        isEdible,                  // EDIBLE
-                        tokens[1],                // CAP-SHAPE
-                        tokens[2],                // CAP-SURFACE
-                        tokens[3],                // CAP-COLOR
-                        tokens[4],                // BRUISES
-                        tokens[5],                // ODOR
-                        tokens[6],                // GILL-ATTACHMENT
-                        tokens[7],                // GILL-SPACING
-                        tokens[8],                // GILL-SIZE
-                        tokens[9],                // GILL-COLOR
-                        tokens[10],               // STALK-SHAPE
-                        tokens[11],               // STALK-ROOT
-                        tokens[12],               // STALK-SURFACE-ABOVE-RING
-                        tokens[13],               // STALK-SRFACE-UNDER-RING
-                        tokens[14],               // STALK-COLOR-ABOVE-RING
-                        tokens[15],               // STALK-COLOR-BELOW-RING
-                        tokens[16],               // VEIL-TYPE
-                        tokens[17],               // VEIL-COLOR
-                        tokens[18],               // RING-NUMBER
-                        tokens[19],               // RING-TYPE
-                        tokens[20],               // SPORE-PRINT-COLOR
-                        tokens[21],               // POPULATION
-                        tokens[22]                // HABITAT
-                );
-                fullData.add(record);
+        add(CategoricalDataSet.readCsv(filePath, LABEL_COLUMN, LABEL_VALUES, ATTRIBUTE_ALIASES));
+    }
+
+    /**
+     * Reads a CSV classpath resource such as {@link #RESOURCE}, laid out like {@link #loadData}.
+     * The resource is read as a stream, so this also works when it is packaged in a jar.
+     */
+    public void loadResource(String name) throws IOException {
+        try (InputStream in = MushroomDataSet.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new FileNotFoundException("No resource " + name);
             }
+            add(CategoricalDataSet.readCsv(in, name, LABEL_COLUMN, LABEL_VALUES, ATTRIBUTE_ALIASES));
         }
     }
 
     /**
-     * Splits the fullData list into 70% training and 30% test data.
+     * Reads a binary columnar file written by {@link ColumnarFile.Writer}, e.g. by the
+     * {@link SyntheticDataGenerator}. Rows are decoded block by block.
+     */
+    public void loadColumnar(Path filePath) throws IOException {
+        add(CategoricalDataSet.readColumnar(filePath, LABEL_COLUMN, LABEL_VALUES, ATTRIBUTE_ALIASES));
+    }
+
+    private void add(CategoricalDataSet dataSet) {
+        schema = dataSet.getSchema();
+        fullData.addAll(dataSet.getRecords());
+    }
+
+    // Schema of the most recently loaded file
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public List<String> getAttributes() {
+        return schema.getAttributes();
+    }
+
+    // Fixes the seed used by the splits that are not given one, making them reproducible; null restores fresh seeds
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Splits the fullData list into training and test data with the seed set by setSeed(), or a
+     * fresh random seed if there is none.
      * Call this after loadData(), or re-call if you want a fresh shuffle & split.
      */
     public void splitTrainingTest(double trainRatio) {
-        Collections.shuffle(fullData);
-        int trainSize = (int) (fullData.size() * trainRatio);
-        trainingData = fullData.subList(0, trainSize);
-        testData = fullData.subList(trainSize, fullData.size());
+        splitTrainingTest(trainRatio, seed != null ? seed : System.nanoTime());
+    }
+
+    /**
+     * Reproducible stratified split into training and test data. fullData keeps its order;
+     * the training and test lists are index views onto it.
+     */
+    public void splitTrainingTest(double trainRatio, long seed) {
+        split(trainRatio, 0.0, seed);
+    }
+
+    /**
+     * Reproducible stratified split into training, validation and test data without copying or
+     * reordering any records. The returned split holds the index arrays behind the three lists.
+     */
+    public DataSplit split(double trainRatio, double validationRatio, long seed) {
+        DataSplit split = DataSplit.stratified(fullData, trainRatio, validationRatio, seed);
+        trainingData = split.training(fullData);
+        validationData = split.validation(fullData);
+        testData = split.test(fullData);
+        return split;
     }
 
     /**
-     * Convenience method to do a 70/30 split.
+     * Convenience method to do a 60/40 split.
      */
     public void splitTrainingTest() {
         splitTrainingTest(0.60);
@@ -120,6 +130,10 @@ public class MushroomDataSet {
         return trainingData;
     }
 
+    public List<Mushroom> getValidationData() {
+        return validationData;
+    }
+
     public List<Mushroom> getTestData() {
         return testData;
     }
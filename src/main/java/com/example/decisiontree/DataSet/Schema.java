@@ -0,0 +1,219 @@
+package com.example.decisiontree.DataSet;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column layout of a categorical dataset: the label column and the attribute columns in order.
+ * Attribute names are matched exactly first and then case-insensitively.
+ *
+ * Label values are numbered by class index. A schema created with label values is fixed; one
+ * created without them numbers labels as a dataset registers them while loading.
+ *
+ * Numeric attributes carry ascending bin edges. Their values are stored as bin labels such as
+ * "<=2.5", "(2.5,4]" or ">4", with bin i holding the values up to and including edge i, so the
+ * categorical engine handles them unchanged and threshold splits are cuts in bin order.
+ */
+public class Schema {
+
+    private final String labelColumn;
+    private final List<String> attributes;
+    private final Map<String, Integer> index = new HashMap<>();
+    private final List<String> labelValues = new ArrayList<>();
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    private final boolean labelsFixed;
+    // Bin edges and labels of numeric attributes; null for categorical ones
+    private final double[][] binEdges;
+    private final List<List<String>> binLabels;
+
+    public Schema(String labelColumn, List<String> attributes) {
+        this(labelColumn, attributes, List.of());
+    }
+
+    public Schema(String labelColumn, List<String> attributes, List<String> labelValues) {
+        this.labelColumn = labelColumn;
+        this.attributes = Collections.unmodifiableList(new ArrayList<>(attributes));
+        for (int i = 0; i < this.attributes.size(); i++) {
+            String attribute = this.attributes.get(i);
+            if (index.putIfAbsent(attribute, i) != null) {
+                throw new IllegalArgumentException("Duplicate attribute column: " + attribute);
+            }
+            index.putIfAbsent(attribute.toUpperCase(Locale.ROOT), i);
+        }
+        this.binEdges = new double[this.attributes.size()][];
+        this.binLabels = new ArrayList<>(Collections.nCopies(this.attributes.size(), null));
+        for (String label : labelValues) {
+            registerLabel(label);
+        }
+        this.labelsFixed = !labelValues.isEmpty();
+    }
+
+    /**
+     * Builds the schema from a header row. Every column except the label column becomes an
+     * attribute, keeping the header order. Names found in aliases are replaced by their mapping.
+     */
+    public static Schema fromHeader(String[] header, String labelColumn, Map<String, String> aliases) {
+        List<String> attributes = new ArrayList<>();
+        boolean hasLabel = false;
+        for (String column : header) {
+            String name = aliases.getOrDefault(column.trim(), column.trim());
+            if (name.equalsIgnoreCase(labelColumn)) {
+                hasLabel = true;
+            } else {
+                attributes.add(name);
+            }
+        }
+        if (!hasLabel) {
+            throw new IllegalArgumentException("Header has no label column " + labelColumn);
+        }
+        return new Schema(labelColumn, attributes);
+    }
+
+    public String getLabelColumn() {
+        return labelColumn;
+    }
+
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    public int getAttributeCount() {
+        return attributes.size();
+    }
+
+    // Label values in class index order
+    public List<String> getLabelValues() {
+        return Collections.unmodifiableList(labelValues);
+    }
+
+    // Number of classes, at least two so that binary records without named labels fit
+    public int getClassCount() {
+        return Math.max(2, labelValues.size());
+    }
+
+    // Label value of a class index; unnamed classes of binary data are EDIBLE and POISONOUS
+    public String labelOf(int classIndex) {
+        if (classIndex < labelValues.size()) {
+            return labelValues.get(classIndex);
+        }
+        return classIndex == Mushroom.EDIBLE ? "EDIBLE" : classIndex == Mushroom.POISONOUS ? "POISONOUS" : "CLASS-" + classIndex;
+    }
+
+    // Class index of a label value (case-insensitive), or -1 if unknown
+    public int classIndexOf(String label) {
+        Integer i = labelIndex.get(label);
+        if (i == null) {
+            i = labelIndex.get(label.toUpperCase(Locale.ROOT));
+        }
+        return i == null ? -1 : i;
+    }
+
+    // Class index of the label, numbering it as the next class if it is new and the labels are not fixed
+    synchronized int registerLabel(String label) {
+        int known = classIndexOf(label);
+        if (known >= 0) {
+            return known;
+        }
+        if (labelsFixed) {
+            throw new IllegalArgumentException("Unknown value " + label + " in label column " + labelColumn
+                    + "; expected one of " + labelValues);
+        }
+        int classIndex = labelValues.size();
+        labelValues.add(label);
+        labelIndex.putIfAbsent(label, classIndex);
+        labelIndex.putIfAbsent(label.toUpperCase(Locale.ROOT), classIndex);
+        return classIndex;
+    }
+
+    // Position of the attribute, or -1 if the schema has no such attribute
+    public int indexOf(String attribute) {
+        Integer i = index.get(attribute);
+        if (i == null) {
+            i = index.get(attribute.toUpperCase(Locale.ROOT));
+        }
+        return i == null ? -1 : i;
+    }
+
+    public boolean isNumeric(int index) {
+        return binEdges[index] != null;
+    }
+
+    public boolean isNumeric(String attribute) {
+        int i = indexOf(attribute);
+        return i >= 0 && isNumeric(i);
+    }
+
+    public double[] getBinEdges(int index) {
+        return binEdges[index];
+    }
+
+    // Bin labels of a numeric attribute in ascending order
+    public List<String> getBinLabels(int index) {
+        return binLabels.get(index);
+    }
+
+    // Makes the attribute numeric with the given ascending bin edges; set while loading the data
+    void setBinEdges(int index, double[] edges) {
+        for (int i = 1; i < edges.length; i++) {
+            if (!(edges[i] > edges[i - 1])) {
+                throw new IllegalArgumentException("Bin edges must be strictly ascending");
+            }
+        }
+        List<String> labels = new ArrayList<>();
+        for (int bin = 0; bin <= edges.length; bin++) {
+            labels.add(binLabel(edges, bin));
+        }
+        binEdges[index] = edges.clone();
+        binLabels.set(index, Collections.unmodifiableList(labels));
+    }
+
+    // Bin of a value: the first bin whose upper edge is at least the value
+    public int binOf(int index, double value) {
+        int position = Arrays.binarySearch(binEdges[index], value);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    /**
+     * Value as stored for the attribute: numeric input is replaced by its bin label, anything
+     * that is not a number (a bin label, a missing value) is returned unchanged.
+     */
+    public String canonicalValue(int index, String value) {
+        if (binEdges[index] == null || value == null) {
+            return value;
+        }
+        double number = parseNumber(value);
+        return Double.isNaN(number) ? value : binLabels.get(index).get(binOf(index, number));
+    }
+
+    // The value as a number, or NaN if it is not one
+    static double parseNumber(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String binLabel(double[] edges, int bin) {
+        if (edges.length == 0) {
+            return "*";
+        }
+        if (bin == 0) {
+            return "<=" + format(edges[0]);
+        }
+        if (bin == edges.length) {
+            return ">" + format(edges[edges.length - 1]);
+        }
+        return "(" + format(edges[bin - 1]) + "," + format(edges[bin]) + "]";
+    }
+
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
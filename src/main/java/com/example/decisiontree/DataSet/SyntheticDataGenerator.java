@@ -0,0 +1,331 @@
+package com.example.decisiontree.DataSet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates arbitrarily large synthetic mushroom-like datasets for scale testing.
+ *
+ * The generator learns the label prior and, for every attribute, the value distribution
+ * conditional on the label. Rows are sampled from that model and streamed straight to disk,
+ * so memory use does not depend on the number of rows. Each row is derived from its own seed,
+ * which lets duplicates be re-generated from a bounded pool of earlier seeds instead of
+ * keeping earlier rows around.
+ */
+public class SyntheticDataGenerator {
+
+    public static final String LABEL_COLUMN = "EDIBLE";
+    private static final String[] LABELS = {"EDIBLE", "POISONOUS"};
+    private static final int DUPLICATE_POOL_SIZE = 4096;
+
+    private final List<String> attributes;
+    // Learned model: values per attribute and per-label counts for each value
+    private final List<List<String>> learnedValues;
+    private final List<long[][]> learnedCounts;
+    private final long[] labelCounts;
+
+    private int extraValuesPerColumn = 0;
+    private double labelNoise = 0.0;
+    private double duplicateRate = 0.0;
+
+    private SyntheticDataGenerator(List<String> attributes, List<List<String>> values, List<long[][]> counts, long[] labelCounts) {
+        this.attributes = attributes;
+        this.learnedValues = values;
+        this.learnedCounts = counts;
+        this.labelCounts = labelCounts;
+    }
+
+    /**
+     * Learns per-label value distributions for every attribute of the records' schema.
+     */
+    public static SyntheticDataGenerator learn(List<Mushroom> data) {
+        List<String> attributes = data.isEmpty() ? MushroomDataSet.ATTRIBUTES : data.get(0).getSchema().getAttributes();
+        long[] labelCounts = new long[2];
+        List<Map<String, long[]>> perAttribute = new ArrayList<>();
+        for (int a = 0; a < attributes.size(); a++) {
+            perAttribute.add(new LinkedHashMap<>());
+        }
+
+        for (Mushroom record : data) {
+            int label = record.isEdible() ? 0 : 1;
+            labelCounts[label]++;
+            for (int a = 0; a < attributes.size(); a++) {
+                String value = record.getValue(a);
+                perAttribute.get(a).computeIfAbsent(value, v -> new long[2])[label]++;
+            }
+        }
+
+        List<List<String>> values = new ArrayList<>();
+        List<long[][]> counts = new ArrayList<>();
+        for (Map<String, long[]> valueCounts : perAttribute) {
+            values.add(new ArrayList<>(valueCounts.keySet()));
+            counts.add(valueCounts.values().toArray(new long[0][]));
+        }
+        return new SyntheticDataGenerator(attributes, values, counts, labelCounts);
+    }
+
+    /**
+     * Builds a generator from a schema alone: every value of an attribute is equally likely
+     * under both labels, and both labels are equally likely.
+     */
+    public static SyntheticDataGenerator fromSchema(List<String> attributes, List<List<String>> valuesPerAttribute) {
+        if (attributes.size() != valuesPerAttribute.size()) {
+            throw new IllegalArgumentException("One value list per attribute is required");
+        }
+        List<long[][]> counts = new ArrayList<>();
+        for (List<String> values : valuesPerAttribute) {
+            long[][] uniform = new long[values.size()][];
+            for (int v = 0; v < uniform.length; v++) {
+                uniform[v] = new long[]{1, 1};
+            }
+            counts.add(uniform);
+        }
+        return new SyntheticDataGenerator(new ArrayList<>(attributes), valuesPerAttribute, counts, new long[]{1, 1});
+    }
+
+    // Adds this many synthetic values to every attribute, each as likely as an average learned value
+    public void setExtraValuesPerColumn(int extraValuesPerColumn) {
+        if (extraValuesPerColumn < 0) {
+            throw new IllegalArgumentException("extraValuesPerColumn must be >= 0");
+        }
+        this.extraValuesPerColumn = extraValuesPerColumn;
+    }
+
+    // Probability that a generated row gets the opposite label
+    public void setLabelNoise(double labelNoise) {
+        this.labelNoise = checkProbability(labelNoise, "labelNoise");
+    }
+
+    // Probability that a generated row is an exact copy of an earlier row
+    public void setDuplicateRate(double duplicateRate) {
+        this.duplicateRate = checkProbability(duplicateRate, "duplicateRate");
+    }
+
+    public List<String> getColumns() {
+        List<String> columns = new ArrayList<>();
+        columns.add(LABEL_COLUMN);
+        columns.addAll(attributes);
+        return columns;
+    }
+
+    /**
+     * Writes rows in the same CSV layout as mushroom.csv (label first, then the attributes).
+     */
+    public void writeCsv(Path filePath, long rows, long seed) throws IOException {
+        Sampler sampler = new Sampler();
+        String[][] dictionaries = sampler.dictionaries();
+        int[] codes = new int[dictionaries.length];
+        StringBuilder line = new StringBuilder(256);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", getColumns()));
+            writer.newLine();
+            RowSeeds seeds = new RowSeeds(seed);
+            for (long r = 0; r < rows; r++) {
+                sampler.sampleRow(seeds.next(), codes);
+                line.setLength(0);
+                for (int c = 0; c < codes.length; c++) {
+                    if (c > 0) {
+                        line.append(',');
+                    }
+                    line.append(dictionaries[c][codes[c]]);
+                }
+                writer.append(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes rows as a {@link ColumnarFile}, label column first.
+     */
+    public void writeColumnar(Path filePath, long rows, long seed) throws IOException {
+        Sampler sampler = new Sampler();
+        String[][] dictionaries = sampler.dictionaries();
+        List<List<String>> dictionaryLists = new ArrayList<>();
+        for (String[] dictionary : dictionaries) {
+            dictionaryLists.add(Arrays.asList(dictionary));
+        }
+        int[] codes = new int[dictionaries.length];
+
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(filePath, getColumns(), dictionaryLists)) {
+            RowSeeds seeds = new RowSeeds(seed);
+            for (long r = 0; r < rows; r++) {
+                sampler.sampleRow(seeds.next(), codes);
+                writer.writeRow(codes);
+            }
+        }
+    }
+
+    private static double checkProbability(double value, String name) {
+        if (value < 0.0 || value > 1.0) {
+            throw new IllegalArgumentException(name + " must be within [0, 1]");
+        }
+        return value;
+    }
+
+    /**
+     * Hands out one seed per row. With the duplicate rate set, a row reuses the seed of an
+     * earlier row drawn from a fixed-size reservoir, which reproduces that row exactly.
+     */
+    private class RowSeeds {
+        private final SplittableRandom random;
+        private final long[] pool = new long[DUPLICATE_POOL_SIZE];
+        private long generated;
+
+        RowSeeds(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        long next() {
+            if (generated > 0 && duplicateRate > 0 && random.nextDouble() < duplicateRate) {
+                return pool[random.nextInt((int) Math.min(generated, DUPLICATE_POOL_SIZE))];
+            }
+            long rowSeed = random.nextLong();
+            if (generated < DUPLICATE_POOL_SIZE) {
+                pool[(int) generated] = rowSeed;
+            } else {
+                long slot = random.nextLong(generated + 1);
+                if (slot < DUPLICATE_POOL_SIZE) {
+                    pool[(int) slot] = rowSeed;
+                }
+            }
+            generated++;
+            return rowSeed;
+        }
+    }
+
+    /**
+     * Cumulative distributions for the label and for every attribute under each label,
+     * including the configured extra values.
+     */
+    private class Sampler {
+        private final double[] labelCdf;
+        private final double[][][] valueCdf; // [attribute][label][value]
+        private final String[][] dictionaries; // [column][code], column 0 is the label
+
+        Sampler() {
+            labelCdf = cdf(new double[]{labelCounts[0], labelCounts[1]});
+            valueCdf = new double[attributes.size()][2][];
+            dictionaries = new String[attributes.size() + 1][];
+            dictionaries[0] = LABELS.clone();
+
+            for (int a = 0; a < attributes.size(); a++) {
+                List<String> values = learnedValues.get(a);
+                long[][] counts = learnedCounts.get(a);
+                int size = values.size() + extraValuesPerColumn;
+
+                String[] dictionary = values.toArray(new String[size]);
+                for (int e = 0; e < extraValuesPerColumn; e++) {
+                    dictionary[values.size() + e] = attributes.get(a) + "-X" + (e + 1);
+                }
+                dictionaries[a + 1] = dictionary;
+
+                for (int label = 0; label < 2; label++) {
+                    double[] weights = new double[size];
+                    double total = 0;
+                    for (int v = 0; v < values.size(); v++) {
+                        weights[v] = counts[v][label];
+                        total += weights[v];
+                    }
+                    double average = values.isEmpty() ? 1.0 : Math.max(total / values.size(), 1.0);
+                    for (int v = values.size(); v < size; v++) {
+                        weights[v] = average;
+                    }
+                    valueCdf[a][label] = cdf(weights);
+                }
+            }
+        }
+
+        String[][] dictionaries() {
+            return dictionaries;
+        }
+
+        void sampleRow(long rowSeed, int[] codes) {
+            SplittableRandom random = new SplittableRandom(rowSeed);
+            int label = draw(labelCdf, random.nextDouble());
+            for (int a = 0; a < valueCdf.length; a++) {
+                codes[a + 1] = draw(valueCdf[a][label], random.nextDouble());
+            }
+            if (labelNoise > 0 && random.nextDouble() < labelNoise) {
+                label = 1 - label;
+            }
+            codes[0] = label;
+        }
+
+        private double[] cdf(double[] weights) {
+            double[] cdf = new double[weights.length];
+            double sum = 0;
+            for (double weight : weights) {
+                sum += weight;
+            }
+            double running = 0;
+            for (int i = 0; i < weights.length; i++) {
+                running += weights[i];
+                cdf[i] = sum == 0 ? (double) (i + 1) / weights.length : running / sum;
+            }
+            if (cdf.length > 0) {
+                cdf[cdf.length - 1] = 1.0;
+            }
+            return cdf;
+        }
+
+        private int draw(double[] cdf, double u) {
+            int index = Arrays.binarySearch(cdf, u);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return Math.min(index, cdf.length - 1);
+        }
+    }
+
+    /**
+     * Command line entry point. Learns from the bundled mushroom.csv (or --source) and writes a dataset:
+     * <pre>
+     *   --out FILE --rows N [--format csv|columnar] [--seed S]
+     *   [--extra-values K] [--label-noise P] [--duplicate-rate P] [--source FILE]
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        if (!options.containsKey("--out") || !options.containsKey("--rows")) {
+            System.err.println("Usage: SyntheticDataGenerator --out FILE --rows N [--format csv|columnar] [--seed S]"
+                    + " [--extra-values K] [--label-noise P] [--duplicate-rate P] [--source FILE]");
+            System.exit(2);
+        }
+
+        MushroomDataSet source = new MushroomDataSet();
+        if (options.containsKey("--source")) {
+            source.loadData(Paths.get(options.get("--source")));
+        } else {
+            source.loadResource(MushroomDataSet.RESOURCE);
+        }
+
+        SyntheticDataGenerator generator = learn(source.getFullData());
+        generator.setExtraValuesPerColumn(Integer.parseInt(options.getOrDefault("--extra-values", "0")));
+        generator.setLabelNoise(Double.parseDouble(options.getOrDefault("--label-noise", "0")));
+        generator.setDuplicateRate(Double.parseDouble(options.getOrDefault("--duplicate-rate", "0")));
+
+        Path out = Paths.get(options.get("--out"));
+        long rows = Long.parseLong(options.get("--rows"));
+        long seed = Long.parseLong(options.getOrDefault("--seed", "42"));
+        if ("columnar".equalsIgnoreCase(options.getOrDefault("--format", "csv"))) {
+            generator.writeColumnar(out, rows, seed);
+        } else {
+            generator.writeCsv(out, rows, seed);
+        }
+    }
+}
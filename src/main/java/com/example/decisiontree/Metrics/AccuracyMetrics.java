@@ -1,62 +1,62 @@
 package com.example.decisiontree.Metrics;
 
 import com.example.decisiontree.DataSet.Mushroom;
-import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.Predictor;
 
 import java.util.List;
 
 public class AccuracyMetrics {
 
+    /**
+     * Precision, recall and F1 are those of the first label value (EDIBLE for mushroom data) when
+     * there are two classes, and macro averages over the classes otherwise. ROC-AUC and log-loss
+     * are NaN unless the predictor gives probabilities.
+     */
     public static class Results {
         public double accuracy;
         public double precision;
         public double recall;
         public double f1;
+        public double rocAuc = Double.NaN;
+        public double logLoss = Double.NaN;
+        public ConfusionMatrix confusionMatrix;
 
         @Override
         public String toString() {
-            return String.format("Accuracy=%.2f, Precision=%.2f, Recall=%.2f, F1=%.2f",
+            String scores = String.format("Accuracy=%.2f, Precision=%.2f, Recall=%.2f, F1=%.2f",
                     accuracy, precision, recall, f1);
-        }
-    }
-
-    public static Results evaluate(DecisionTree decisionTree, List<Mushroom> testData) {
-
-        int truePos = 0;
-        int falsePos = 0;
-        int trueNeg = 0;
-        int falseNeg = 0;
-
-        for (Mushroom record : testData) {
-            boolean isEdible = record.isEdible();
-            String prediction = decisionTree.predict(record);
-            boolean predictedEdible = prediction.equalsIgnoreCase("EDIBLE");
-
-            if (isEdible && predictedEdible) {
-                truePos++;
-            } else if (!isEdible && predictedEdible) {
-                falsePos++;
-            } else if (!isEdible && !predictedEdible) {
-                trueNeg++;
-            } else if (isEdible && !predictedEdible) {
-                falseNeg++;
+            if (!Double.isNaN(rocAuc)) {
+                scores += String.format(", ROC-AUC=%.3f, LogLoss=%.4f", rocAuc, logLoss);
             }
+            return scores;
         }
+    }
 
-        Results results = new Results();
-        int total = testData.size();
-
-        results.accuracy = (double) (truePos + trueNeg) / total;
-
-        double denomPrecision = (truePos + falsePos);
-        results.precision = (denomPrecision == 0) ? 0 : (double) truePos / denomPrecision;
-
-        double denomRecall = (truePos + falseNeg);
-        results.recall = (denomRecall == 0) ? 0 : (double) truePos / denomRecall;
+    // Scores the predictor in parallel chunks; see EvaluationEngine for streaming from files
+    public static Results evaluate(Predictor predictor, List<Mushroom> testData) {
+        return EvaluationEngine.evaluate(predictor, testData);
+    }
 
-        double denomF1 = (results.precision + results.recall);
-        results.f1 = (denomF1 == 0) ? 0 : 2 * (results.precision * results.recall) / denomF1;
+    // Confusion matrix over the label values of the data's schema
+    public static ConfusionMatrix confusionMatrix(Predictor predictor, List<Mushroom> testData) {
+        return evaluate(predictor, testData).confusionMatrix;
+    }
 
+    static Results results(ConfusionMatrix matrix, double rocAuc, double logLoss) {
+        Results results = new Results();
+        results.confusionMatrix = matrix;
+        results.accuracy = matrix.accuracy();
+        if (matrix.getClassCount() <= 2) {
+            results.precision = matrix.getClassCount() == 0 ? 0 : matrix.precision(0);
+            results.recall = matrix.getClassCount() == 0 ? 0 : matrix.recall(0);
+            results.f1 = matrix.getClassCount() == 0 ? 0 : matrix.f1(0);
+        } else {
+            results.precision = matrix.macroPrecision();
+            results.recall = matrix.macroRecall();
+            results.f1 = matrix.macroF1();
+        }
+        results.rocAuc = rocAuc;
+        results.logLoss = logLoss;
         return results;
     }
 }
@@ -0,0 +1,307 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.CategoricalDataSet;
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pre-screening of the candidate attributes before training, dropping columns that would be
+ * scored at every node without ever giving a split of their own:
+ * <ul>
+ *   <li>CONSTANT: one value over all records.</li>
+ *   <li>NO_INFORMATION: the same class distribution for every value, so zero information gain.</li>
+ *   <li>DUPLICATE: the same partition of the records as an earlier attribute, up to value names.</li>
+ *   <li>DEPENDENT: a function of another attribute, each of whose values occurs with only one of
+ *   its values, so its splits are coarser groupings of that attribute's splits.</li>
+ * </ul>
+ *
+ * The columns are checked one at a time: each attribute's contingency counts decide CONSTANT and
+ * NO_INFORMATION, and only the attributes left are compared pairwise, on value codes read from
+ * the dataset when the records are rows of one {@link CategoricalDataSet}, or numbered here.
+ * Numeric attributes are split at thresholds in their own bin order, so they are never compared.
+ *
+ * The attributes are expected in the order the tree scores them, which settles ties: a duplicate
+ * or dependent attribute is only dropped after the attribute it is a function of. Which reasons
+ * apply depends on the entry point:
+ * <ul>
+ *   <li>{@link #screen(List, List)} drops CONSTANT and DUPLICATE attributes, which no criterion
+ *   splits on in place of the attributes kept.</li>
+ *   <li>{@link #screen(List, List, SplitCriterion)} also drops DEPENDENT attributes under
+ *   information gain or Gini, where a coarser split never scores above the finer one. Gain ratio
+ *   and chi-square can prefer the coarser split, and so can a minimum leaf size that rules out
+ *   the finer attribute's multiway split, so callers with such a limit use the first form.</li>
+ *   <li>{@link #screenLossy(List, List)} drops every kind, and can change the tree: NO_INFORMATION
+ *   is judged over the whole data, so a dropped column could still separate classes inside some
+ *   subtree (two attributes whose XOR is the class each carry no information alone).</li>
+ * </ul>
+ */
+public class AttributeScreening {
+
+    public enum Reason {
+        CONSTANT,
+        NO_INFORMATION,
+        DUPLICATE,
+        DEPENDENT
+    }
+
+    private final List<String> kept;
+    private final Map<String, Reason> dropped;
+    // Kept attribute that a duplicate or dependent attribute is a function of
+    private final Map<String, String> determinedBy;
+
+    private AttributeScreening(List<String> kept, Map<String, Reason> dropped, Map<String, String> determinedBy) {
+        this.kept = Collections.unmodifiableList(kept);
+        this.dropped = Collections.unmodifiableMap(dropped);
+        this.determinedBy = Collections.unmodifiableMap(determinedBy);
+    }
+
+    // Drops the attributes no criterion would split on in place of the ones kept
+    public static AttributeScreening screen(List<Mushroom> data, List<String> attributes) {
+        return screen(data, attributes, false, false);
+    }
+
+    // Also drops dependent attributes when the criterion never scores a coarser split above a finer one
+    public static AttributeScreening screen(List<Mushroom> data, List<String> attributes, SplitCriterion criterion) {
+        boolean dropDependent = criterion == SplitCriterion.INFO_GAIN || criterion == SplitCriterion.GINI;
+        return screen(data, attributes, dropDependent, false);
+    }
+
+    // Drops every kind of redundant attribute; faster to train on, but the tree may change
+    public static AttributeScreening screenLossy(List<Mushroom> data, List<String> attributes) {
+        return screen(data, attributes, true, true);
+    }
+
+    private static AttributeScreening screen(List<Mushroom> data, List<String> attributes, boolean dropDependent,
+                                             boolean dropUninformative) {
+        int n = data.size();
+        int k = attributes.size();
+        int classCount = ContingencyTable.classCount(data);
+        Schema schema = n == 0 ? null : data.get(0).getSchema();
+        Map<String, Reason> reasons = new HashMap<>();
+        List<Integer> candidates = new ArrayList<>();
+        int[] valueCounts = new int[k];
+        for (int a = 0; a < k; a++) {
+            ContingencyTable table = ContingencyTable.of(data, attributes.get(a), classCount);
+            valueCounts[a] = table.getValueCount();
+            if (n > 0 && table.getValueCount() <= 1) {
+                reasons.put(attributes.get(a), Reason.CONSTANT);
+            } else if (dropUninformative && n > 0 && !informative(table)) {
+                reasons.put(attributes.get(a), Reason.NO_INFORMATION);
+            } else if (schema == null || !schema.isNumeric(attributes.get(a))) {
+                candidates.add(a);
+            }
+        }
+        Column[] codes = columns(data, attributes, candidates);
+
+        // determines[x][y]: candidate y is a function of candidate x
+        int m = candidates.size();
+        boolean[][] determines = new boolean[m][m];
+        for (int x = 0; x < m; x++) {
+            for (int y = 0; y < m; y++) {
+                int a = candidates.get(x);
+                int b = candidates.get(y);
+                determines[x][y] = x != y && valueCounts[b] <= valueCounts[a] && isFunctionOf(codes[y], codes[x]);
+            }
+        }
+        // Among attributes inducing the same partition the first is kept, and a coarser one is dropped if enabled;
+        // either way only after the attribute it is a function of, which then wins any tie in score
+        boolean[] droppedCandidate = new boolean[m];
+        for (int y = 0; y < m; y++) {
+            for (int x = 0; x < y; x++) {
+                if (determines[x][y] && (determines[y][x] || dropDependent)) {
+                    droppedCandidate[y] = true;
+                    break;
+                }
+            }
+        }
+        Map<String, String> determinedBy = new HashMap<>();
+        for (int y = 0; y < m; y++) {
+            if (!droppedCandidate[y]) {
+                continue;
+            }
+            for (int x = 0; x < y; x++) {
+                if (!droppedCandidate[x] && determines[x][y]) {
+                    String attribute = attributes.get(candidates.get(y));
+                    reasons.put(attribute, determines[y][x] ? Reason.DUPLICATE : Reason.DEPENDENT);
+                    determinedBy.put(attribute, attributes.get(candidates.get(x)));
+                    break;
+                }
+            }
+        }
+
+        List<String> kept = new ArrayList<>();
+        Map<String, Reason> dropped = new LinkedHashMap<>();
+        Map<String, String> orderedDeterminedBy = new LinkedHashMap<>();
+        for (String attribute : attributes) {
+            Reason reason = reasons.get(attribute);
+            if (reason == null) {
+                kept.add(attribute);
+            } else {
+                dropped.put(attribute, reason);
+                if (determinedBy.containsKey(attribute)) {
+                    orderedDeterminedBy.put(attribute, determinedBy.get(attribute));
+                }
+            }
+        }
+        return new AttributeScreening(kept, dropped, orderedDeterminedBy);
+    }
+
+    // Whether the class distribution differs between values: n_vc * N != n_v * n_c for some cell
+    private static boolean informative(ContingencyTable table) {
+        long[] classTotals = table.getClassTotals();
+        for (int v = 0; v < table.getValueCount(); v++) {
+            for (int c = 0; c < table.getClassCount(); c++) {
+                if (table.getCount(v, c) * table.getTotal() != table.getValueTotal(v) * classTotals[c]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Whether every value of the determining column occurs with a single value of the dependent column
+    private static boolean isFunctionOf(Column dependent, Column determining) {
+        int[] image = new int[determining.size()];
+        Arrays.fill(image, -1);
+        for (int i = 0; i < dependent.length(); i++) {
+            int value = determining.code(i);
+            if (image[value] < 0) {
+                image[value] = dependent.code(i);
+            } else if (image[value] != dependent.code(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Value codes of the candidate columns. Rows of one CategoricalDataSet are read through its own
+     * codes, so nothing is copied; other records are numbered here, one candidate column at a time.
+     */
+    private static Column[] columns(List<Mushroom> data, List<String> attributes, List<Integer> candidates) {
+        CategoricalDataSet source = data.isEmpty() ? null : CategoricalDataSet.sourceOf(data.get(0));
+        int[] rows = source == null ? null : new int[data.size()];
+        for (int i = 0; rows != null && i < rows.length; i++) {
+            rows[i] = source.rowOf(data.get(i));
+            if (rows[i] < 0) {
+                rows = null;
+            }
+        }
+        Column[] columns = new Column[candidates.size()];
+        for (int x = 0; x < columns.length; x++) {
+            String attribute = attributes.get(candidates.get(x));
+            int index = rows == null ? -1 : source.getSchema().indexOf(attribute);
+            columns[x] = index >= 0 ? new DataSetColumn(source, rows, index) : EncodedColumn.of(data, attribute);
+        }
+        return columns;
+    }
+
+    // Codes of one attribute's values by record, each below size()
+    private interface Column {
+        int code(int record);
+
+        int size();
+
+        int length();
+    }
+
+    private static final class DataSetColumn implements Column {
+        private final CategoricalDataSet dataSet;
+        private final int[] rows;
+        private final int index;
+
+        DataSetColumn(CategoricalDataSet dataSet, int[] rows, int index) {
+            this.dataSet = dataSet;
+            this.rows = rows;
+            this.index = index;
+        }
+
+        @Override
+        public int code(int record) {
+            return dataSet.getCode(rows[record], index);
+        }
+
+        @Override
+        public int size() {
+            return dataSet.getDictionary(index).size();
+        }
+
+        @Override
+        public int length() {
+            return rows.length;
+        }
+    }
+
+    private static final class EncodedColumn implements Column {
+        private final int[] codes;
+        private final int size;
+
+        private EncodedColumn(int[] codes, int size) {
+            this.codes = codes;
+            this.size = size;
+        }
+
+        static EncodedColumn of(List<Mushroom> data, String attribute) {
+            Map<String, Integer> dictionary = new HashMap<>();
+            int[] codes = new int[data.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = dictionary.computeIfAbsent(Splitter.getAttributeValue(data.get(i), attribute), v -> dictionary.size());
+            }
+            return new EncodedColumn(codes, dictionary.size());
+        }
+
+        @Override
+        public int code(int record) {
+            return codes[record];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int length() {
+            return codes.length;
+        }
+    }
+
+    // Attributes that passed, in their original order
+    public List<String> getKept() {
+        return kept;
+    }
+
+    // Dropped attributes in their original order, with the reason each was dropped
+    public Map<String, Reason> getDropped() {
+        return dropped;
+    }
+
+    // For duplicate and dependent attributes, the kept attribute they are a function of
+    public Map<String, String> getDeterminedBy() {
+        return determinedBy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("Kept %d of %d attributes",
+                kept.size(), kept.size() + dropped.size()));
+        for (Map.Entry<String, Reason> entry : dropped.entrySet()) {
+            sb.append('\n').append(entry.getKey()).append(": ")
+                    .append(entry.getValue().name().toLowerCase(Locale.ROOT).replace('_', ' '));
+            String of = determinedBy.get(entry.getKey());
+            if (of != null) {
+                sb.append(entry.getValue() == Reason.DUPLICATE ? " of " : " on ").append(of);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * Pearson chi-square statistic of independence between the attribute and the class.
+ */
+public class ChiSquareCriterion implements SplitCriterion {
+
+    @Override
+    public double score(ContingencyTable table) {
+        long total = table.getTotal();
+        if (total == 0) {
+            return 0.0;
+        }
+        long[] classTotals = table.getClassTotals();
+        double chiSquare = 0.0;
+        for (int v = 0; v < table.getValueCount(); v++) {
+            long valueTotal = table.getValueTotal(v);
+            for (int c = 0; c < classTotals.length; c++) {
+                double expected = (double) valueTotal * classTotals[c] / total;
+                if (expected > 0) {
+                    double diff = table.getCount(v, c) - expected;
+                    chiSquare += diff * diff / expected;
+                }
+            }
+        }
+        return chiSquare;
+    }
+
+    @Override
+    public String getName() {
+        return "Chi-Square";
+    }
+}
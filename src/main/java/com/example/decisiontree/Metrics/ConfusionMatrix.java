@@ -0,0 +1,194 @@
+package com.example.decisiontree.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts of (actual label, predicted label) pairs, with per-class and averaged precision, recall
+ * and F1. Rows are actual labels and columns predicted labels, both in label order; a predicted
+ * label outside the initial labels is appended as a new class.
+ *
+ * Macro averages weigh every class equally. Micro averages pool the counts of all classes; with
+ * one label per record, micro precision, recall and F1 all equal the accuracy.
+ */
+public class ConfusionMatrix {
+
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> index = new HashMap<>();
+    private long[][] counts;
+    private long total;
+
+    public ConfusionMatrix(List<String> labels) {
+        for (String label : labels) {
+            classIndexOf(label);
+        }
+        this.counts = new long[this.labels.size()][this.labels.size()];
+    }
+
+    // Records one prediction given by class indexes
+    public void add(int actual, int predicted) {
+        add(actual, predicted, 1);
+    }
+
+    // Records count predictions given by class indexes
+    public void add(int actual, int predicted, long count) {
+        counts[actual][predicted] += count;
+        total += count;
+    }
+
+    // Records one prediction given by label values
+    public void add(String actual, String predicted) {
+        add(actual, predicted, 1);
+    }
+
+    // Records count predictions given by label values
+    public void add(String actual, String predicted, long count) {
+        int a = classIndexOf(actual);
+        int p = classIndexOf(predicted);
+        if (labels.size() > counts.length) {
+            long[][] grown = new long[labels.size()][];
+            for (int c = 0; c < grown.length; c++) {
+                grown[c] = c < counts.length ? Arrays.copyOf(counts[c], labels.size()) : new long[labels.size()];
+            }
+            counts = grown;
+        }
+        add(a, p, count);
+    }
+
+    private int classIndexOf(String label) {
+        Integer i = index.get(label);
+        if (i == null) {
+            i = labels.size();
+            labels.add(label);
+            index.put(label, i);
+        }
+        return i;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public int getClassCount() {
+        return labels.size();
+    }
+
+    public long getCount(int actual, int predicted) {
+        return counts[actual][predicted];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double accuracy() {
+        long correct = 0;
+        for (int c = 0; c < counts.length; c++) {
+            correct += counts[c][c];
+        }
+        return ratio(correct, total);
+    }
+
+    // Share of the predictions of the class that were right
+    public double precision(int classIndex) {
+        long predicted = 0;
+        for (long[] row : counts) {
+            predicted += row[classIndex];
+        }
+        return ratio(counts[classIndex][classIndex], predicted);
+    }
+
+    // Share of the records of the class that were predicted as such
+    public double recall(int classIndex) {
+        long actual = 0;
+        for (long count : counts[classIndex]) {
+            actual += count;
+        }
+        return ratio(counts[classIndex][classIndex], actual);
+    }
+
+    public double f1(int classIndex) {
+        return f1(precision(classIndex), recall(classIndex));
+    }
+
+    public double macroPrecision() {
+        double sum = 0.0;
+        for (int c = 0; c < counts.length; c++) {
+            sum += precision(c);
+        }
+        return counts.length == 0 ? 0.0 : sum / counts.length;
+    }
+
+    public double macroRecall() {
+        double sum = 0.0;
+        for (int c = 0; c < counts.length; c++) {
+            sum += recall(c);
+        }
+        return counts.length == 0 ? 0.0 : sum / counts.length;
+    }
+
+    // Mean of the per-class F1 scores
+    public double macroF1() {
+        double sum = 0.0;
+        for (int c = 0; c < counts.length; c++) {
+            sum += f1(c);
+        }
+        return counts.length == 0 ? 0.0 : sum / counts.length;
+    }
+
+    // Pooled true positives over pooled predictions; equals the accuracy
+    public double microPrecision() {
+        return accuracy();
+    }
+
+    // Pooled true positives over pooled actual records; equals the accuracy
+    public double microRecall() {
+        return accuracy();
+    }
+
+    public double microF1() {
+        return f1(microPrecision(), microRecall());
+    }
+
+    private static double f1(double precision, double recall) {
+        double sum = precision + recall;
+        return sum == 0 ? 0 : 2 * precision * recall / sum;
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0 : (double) numerator / denominator;
+    }
+
+    // The matrix with actual labels as rows, followed by per-class and averaged scores
+    @Override
+    public String toString() {
+        String corner = "actual\\predicted";
+        int width = 9;
+        for (String label : labels) {
+            width = Math.max(width, label.length() + 1);
+        }
+        String first = "%-" + Math.max(width, corner.length() + 1) + "s";
+        String cell = "%" + width + "s";
+        StringBuilder sb = new StringBuilder(String.format(first, corner));
+        for (String label : labels) {
+            sb.append(String.format(cell, label));
+        }
+        sb.append('\n');
+        for (int a = 0; a < counts.length; a++) {
+            sb.append(String.format(first, labels.get(a)));
+            for (int p = 0; p < counts.length; p++) {
+                sb.append(String.format(cell, counts[a][p]));
+            }
+            sb.append('\n');
+        }
+        for (int c = 0; c < counts.length; c++) {
+            sb.append(String.format("%s: Precision=%.2f, Recall=%.2f, F1=%.2f%n", labels.get(c), precision(c), recall(c), f1(c)));
+        }
+        sb.append(String.format("Macro: Precision=%.2f, Recall=%.2f, F1=%.2f%n", macroPrecision(), macroRecall(), macroF1()));
+        sb.append(String.format("Micro: Precision=%.2f, Recall=%.2f, F1=%.2f", microPrecision(), microRecall(), microF1()));
+        return sb.toString();
+    }
+}
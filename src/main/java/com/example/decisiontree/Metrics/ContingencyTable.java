@@ -0,0 +1,382 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts of (attribute value, class) pairs for one attribute over a set of records.
+ * Built in a single pass; every split criterion is then evaluated on these counts alone.
+ * Classes are the records' class indexes, so the table has one column per label value.
+ */
+public class ContingencyTable {
+
+    // Largest number of values whose two-way groupings are all scored when there are more than two classes
+    static final int MAX_EXHAUSTIVE_VALUES = 12;
+    private static final List<String> GROUPS = List.of("IN", "OUT");
+
+    private final List<String> values;
+    private final int classCount;
+    private final long[][] counts;      // [value][class]
+    private final long[] valueTotals;   // [value]
+    private final long[] classTotals;   // [class]
+    private long total;
+
+    public ContingencyTable(List<String> values, long[][] counts) {
+        this(values, counts, counts.length == 0 ? 0 : counts[0].length);
+    }
+
+    public ContingencyTable(List<String> values, long[][] counts, int classCount) {
+        this.values = values;
+        this.classCount = classCount;
+        this.counts = counts;
+        this.valueTotals = new long[counts.length];
+        this.classTotals = new long[classCount];
+        recount();
+    }
+
+    // Recomputes the totals from the counts, after a scratch table's counts were refilled in place
+    private void recount() {
+        Arrays.fill(classTotals, 0);
+        long sum = 0;
+        for (int v = 0; v < counts.length; v++) {
+            valueTotals[v] = 0;
+            for (int c = 0; c < classCount; c++) {
+                valueTotals[v] += counts[v][c];
+                classTotals[c] += counts[v][c];
+            }
+            sum += valueTotals[v];
+        }
+        total = sum;
+    }
+
+    public static ContingencyTable of(List<Mushroom> data, String attribute) {
+        return of(data, attribute, classCount(data));
+    }
+
+    public static ContingencyTable of(List<Mushroom> data, String attribute, int classCount) {
+        Map<String, long[]> byValue = new LinkedHashMap<>();
+        for (Mushroom record : data) {
+            long[] row = byValue.computeIfAbsent(Splitter.getAttributeValue(record, attribute), v -> new long[classCount]);
+            row[record.getClassIndex()]++;
+        }
+        return new ContingencyTable(new ArrayList<>(byValue.keySet()), byValue.values().toArray(new long[0][]), classCount);
+    }
+
+    // Number of classes of the records' schema
+    public static int classCount(List<Mushroom> data) {
+        return data.isEmpty() ? 2 : data.get(0).getSchema().getClassCount();
+    }
+
+    // Counts of each class index among the records
+    public static long[] classCounts(List<Mushroom> data, int classCount) {
+        long[] counts = new long[classCount];
+        for (Mushroom record : data) {
+            counts[record.getClassIndex()]++;
+        }
+        return counts;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    // The same counts with the values in natural order, so scores and tie-breaks do not depend on the order rows arrived in
+    public ContingencyTable sortedByValue() {
+        Integer[] order = new Integer[values.size()];
+        for (int v = 0; v < order.length; v++) {
+            order[v] = v;
+        }
+        Arrays.sort(order, Comparator.comparing(values::get));
+        List<String> sortedValues = new ArrayList<>(order.length);
+        long[][] sortedCounts = new long[order.length][];
+        for (int v = 0; v < order.length; v++) {
+            sortedValues.add(values.get(order[v]));
+            sortedCounts[v] = counts[order[v]];
+        }
+        return new ContingencyTable(sortedValues, sortedCounts, classCount);
+    }
+
+    public int getValueCount() {
+        return counts.length;
+    }
+
+    public String getValue(int index) {
+        return values.get(index);
+    }
+
+    public long getCount(int valueIndex, int classIndex) {
+        return counts[valueIndex][classIndex];
+    }
+
+    public long[] getCounts(int valueIndex) {
+        return counts[valueIndex];
+    }
+
+    public long getValueTotal(int valueIndex) {
+        return valueTotals[valueIndex];
+    }
+
+    public long[] getClassTotals() {
+        return classTotals;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Entropy of the class distribution before the split
+    public double parentEntropy() {
+        return Log2Table.entropy(classTotals, total);
+    }
+
+    // Entropy of the class distribution among records with the given value
+    public double valueEntropy(int valueIndex) {
+        return Log2Table.entropy(counts[valueIndex], valueTotals[valueIndex]);
+    }
+
+    // Size-weighted entropy of the children after the split
+    public double weightedChildEntropy() {
+        if (total == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int v = 0; v < counts.length; v++) {
+            for (int c = 0; c < classCount; c++) {
+                sum -= Log2Table.nLog2n(counts[v][c]);
+            }
+            sum += Log2Table.nLog2n(valueTotals[v]);
+        }
+        return sum / total;
+    }
+
+    // Entropy of the partition sizes themselves (C4.5 split information)
+    public double splitInfo() {
+        return Log2Table.entropy(valueTotals, total);
+    }
+
+    /**
+     * Best two-way grouping of the values under the given criterion, or null when fewer than two
+     * values are present or no grouping satisfies the size limit. With two classes, values are
+     * ordered by their share of the more frequent class and only the k-1 cut points of that order
+     * are scored. For a binary class and a concave impurity (information gain, Gini) this ordering
+     * is known to contain the optimal partition (Breiman et al., CART), so 2^(k-1) subsets never
+     * have to be tried; for other criteria (gain ratio, chi-square), or when a minimum group size
+     * rules out the optimal cut, it is a heuristic. With more classes no such ordering exists: up
+     * to {@link #MAX_EXHAUSTIVE_VALUES} values every grouping is scored, and beyond that the cuts
+     * of the order by share of the most frequent class are used.
+     */
+    public BinaryGrouping bestBinaryGrouping(SplitCriterion criterion) {
+        return bestBinaryGrouping(criterion, 1);
+    }
+
+    // As above, considering only groupings that leave at least minGroupSize records on each side
+    public BinaryGrouping bestBinaryGrouping(SplitCriterion criterion, long minGroupSize) {
+        int k = counts.length;
+        if (k < 2) {
+            return null;
+        }
+        if (classCount > 2 && k <= MAX_EXHAUSTIVE_VALUES) {
+            return bestSubset(criterion, minGroupSize);
+        }
+        int orderClass = 0;
+        for (int c = 1; c < classCount; c++) {
+            if (classTotals[c] > classTotals[orderClass]) {
+                orderClass = c;
+            }
+        }
+        int shareClass = orderClass;
+        Integer[] boxedOrder = new Integer[k];
+        for (int v = 0; v < k; v++) {
+            boxedOrder[v] = v;
+        }
+        Arrays.sort(boxedOrder, Comparator.comparingDouble(v -> (double) counts[v][shareClass] / valueTotals[v]));
+        int[] order = new int[k];
+        for (int v = 0; v < k; v++) {
+            order[v] = boxedOrder[v];
+        }
+
+        Cut best = bestCut(criterion, minGroupSize, order, new long[classCount], 0);
+        if (best == null) {
+            return null;
+        }
+        List<String> inValues = new ArrayList<>();
+        for (int i = 0; i < best.cut; i++) {
+            inValues.add(values.get(order[i]));
+        }
+        return new BinaryGrouping(best.score, inValues);
+    }
+
+    /**
+     * Best threshold split of an ordinal attribute such as a binned numeric column: the values
+     * present are taken in the given order and only prefixes of that order are scored. Values
+     * outside the order (e.g. missing) are tried on both sides. Returns null when fewer than two
+     * ordered values are present or no threshold satisfies the size limit.
+     */
+    public BinaryGrouping bestThreshold(SplitCriterion criterion, long minGroupSize, List<String> orderedValues) {
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < orderedValues.size(); i++) {
+            position.put(orderedValues.get(i), i);
+        }
+        List<Integer> ordered = new ArrayList<>();
+        List<Integer> unordered = new ArrayList<>();
+        for (int v = 0; v < counts.length; v++) {
+            (position.containsKey(values.get(v)) ? ordered : unordered).add(v);
+        }
+        if (ordered.size() < 2) {
+            return null;
+        }
+        ordered.sort(Comparator.comparingInt(v -> position.get(values.get(v))));
+        int[] order = ordered.stream().mapToInt(Integer::intValue).toArray();
+
+        long[] unorderedCounts = new long[classCount];
+        long unorderedTotal = 0;
+        for (int v : unordered) {
+            for (int c = 0; c < classCount; c++) {
+                unorderedCounts[c] += counts[v][c];
+            }
+            unorderedTotal += valueTotals[v];
+        }
+
+        Cut best = bestCut(criterion, minGroupSize, order, new long[classCount], 0);
+        boolean unorderedIn = false;
+        if (unorderedTotal > 0) {
+            Cut withUnordered = bestCut(criterion, minGroupSize, order, unorderedCounts, unorderedTotal);
+            if (withUnordered != null && (best == null || withUnordered.score > best.score)) {
+                best = withUnordered;
+                unorderedIn = true;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        List<String> inValues = new ArrayList<>();
+        for (int i = 0; i < best.cut; i++) {
+            inValues.add(values.get(order[i]));
+        }
+        if (unorderedIn) {
+            for (int v : unordered) {
+                inValues.add(values.get(v));
+            }
+        }
+        return new BinaryGrouping(best.score, inValues);
+    }
+
+    // Scores every cut of the order; the first cut values plus the fixed in counts form the first group
+    private Cut bestCut(SplitCriterion criterion, long minGroupSize, int[] order, long[] fixedIn, long fixedInTotal) {
+        long[] in = fixedIn.clone();
+        long inTotal = fixedInTotal;
+        ContingencyTable groups = groupTable();
+        Cut best = null;
+        for (int cut = 1; cut < order.length; cut++) {
+            long[] added = counts[order[cut - 1]];
+            for (int c = 0; c < classCount; c++) {
+                in[c] += added[c];
+            }
+            inTotal += valueTotals[order[cut - 1]];
+            if (inTotal < minGroupSize || total - inTotal < minGroupSize) {
+                continue;
+            }
+            double score = scoreGroups(criterion, in, groups);
+            if (score > (best == null ? Double.NEGATIVE_INFINITY : best.score)) {
+                best = new Cut(score, cut);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Scores every grouping of the values, walking the subsets of all but the last value in Gray
+     * code order so each step moves a single value between the groups; the last value always
+     * stays out, which visits each grouping once.
+     */
+    private BinaryGrouping bestSubset(SplitCriterion criterion, long minGroupSize) {
+        int k = counts.length;
+        long[] in = new long[classCount];
+        long inTotal = 0;
+        long previous = 0;
+        long bestMask = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        ContingencyTable groups = groupTable();
+        for (long i = 1; i < 1L << (k - 1); i++) {
+            long mask = i ^ (i >>> 1);
+            int v = Long.numberOfTrailingZeros(mask ^ previous);
+            int sign = (mask & 1L << v) != 0 ? 1 : -1;
+            for (int c = 0; c < classCount; c++) {
+                in[c] += sign * counts[v][c];
+            }
+            inTotal += sign * valueTotals[v];
+            previous = mask;
+            if (inTotal < minGroupSize || total - inTotal < minGroupSize) {
+                continue;
+            }
+            double score = scoreGroups(criterion, in, groups);
+            if (score > bestScore) {
+                bestScore = score;
+                bestMask = mask;
+            }
+        }
+        if (bestMask == 0) {
+            return null;
+        }
+        List<String> inValues = new ArrayList<>();
+        for (int v = 0; v < k; v++) {
+            if ((bestMask & 1L << v) != 0) {
+                inValues.add(values.get(v));
+            }
+        }
+        return new BinaryGrouping(bestScore, inValues);
+    }
+
+    // Two-row table that a search refills for every candidate grouping instead of allocating one per cut
+    private ContingencyTable groupTable() {
+        return new ContingencyTable(GROUPS, new long[2][classCount], classCount);
+    }
+
+    // Score of the two-way split into the in counts and the rest, computed on the reused groups table
+    private double scoreGroups(SplitCriterion criterion, long[] in, ContingencyTable groups) {
+        long[] groupIn = groups.counts[0];
+        long[] groupOut = groups.counts[1];
+        for (int c = 0; c < classCount; c++) {
+            groupIn[c] = in[c];
+            groupOut[c] = classTotals[c] - in[c];
+        }
+        groups.recount();
+        return criterion.score(groups);
+    }
+
+    private static final class Cut {
+        final double score;
+        final int cut;
+
+        Cut(double score, int cut) {
+            this.score = score;
+            this.cut = cut;
+        }
+    }
+
+    public static class BinaryGrouping {
+        private final double score;
+        private final List<String> inValues;
+
+        public BinaryGrouping(double score, List<String> inValues) {
+            this.score = score;
+            this.inValues = inValues;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        // Values sent to the first child; every other value goes to the second
+        public List<String> getInValues() {
+            return inValues;
+        }
+    }
+}
@@ -4,35 +4,19 @@ import com.example.decisiontree.DataSet.Mushroom;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class EntropyCalculator {
 
+    // Entropy of the class distribution, from primitive per-class counts
     public static double calculateTargetEntropy(List<Mushroom> data) {
         if (data.isEmpty()) {
             return 0.0;
         }
-
-        long total = data.size();
-
-        Map<String, Long> classCounts = data.stream()
-                .collect(Collectors.groupingBy(
-                        mushroom -> mushroom.isEdible() ? "EDIBLE" : "POISONOUS",
-                        Collectors.counting()
-                ));
-
-        double entropy = 0.0;
-        for (Map.Entry<String, Long> entry : classCounts.entrySet()) {
-            double probability = (double) entry.getValue() / total;
-            if (probability > 0) {
-                entropy += probability * log2(probability);
-            }
-        }
-
-        return -entropy;
+        long[] classCounts = ContingencyTable.classCounts(data, ContingencyTable.classCount(data));
+        return Log2Table.entropy(classCounts, data.size());
     }
 
+    // Class entropy among the records of each attribute value, from a single contingency table
     public static HashMap<String, Double> calculateAttributeEntropies(List<Mushroom> data, String attribute) {
         HashMap<String, Double> attributeEntropies = new HashMap<>();
 
@@ -40,20 +24,11 @@ public class EntropyCalculator {
             return attributeEntropies;
         }
 
-        Map<String, List<Mushroom>> partitions = Splitter.partitionByAttribute(data, attribute);
-
-        for (Map.Entry<String, List<Mushroom>> entry : partitions.entrySet()) {
-            String attributeValue = entry.getKey();
-            List<Mushroom> subset = entry.getValue();
-
-            double entropy = calculateTargetEntropy(subset);
-            attributeEntropies.put(attributeValue, entropy);
+        ContingencyTable table = ContingencyTable.of(data, attribute);
+        for (int v = 0; v < table.getValueCount(); v++) {
+            attributeEntropies.put(table.getValue(v), table.valueEntropy(v));
         }
 
         return attributeEntropies;
     }
-
-    private static double log2(double value) {
-        return Math.log(value) / Math.log(2);
-    }
 }
@@ -0,0 +1,468 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.ColumnarFile;
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.Schema;
+import com.example.decisiontree.Tree.Predictor;
+import com.example.decisiontree.Tree.ProbabilisticPredictor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scores a predictor on labelled data in a single pass.
+ *
+ * The rows are cut into chunks that worker threads take from a bounded queue. Every worker keeps
+ * its own confusion counts, log-loss sum and score histograms, which are merged once all chunks
+ * are done, so threads never contend on shared counters. Data can come from memory or be streamed
+ * from a CSV or columnar file; files are parsed by the workers and only a few chunks are held in
+ * memory at a time. The workers come from a pool shared by all evaluations, created on first use.
+ * The predictor must be safe for concurrent use, as all predictors here are.
+ *
+ * When the predictor gives probabilities, each record is traversed once: the predicted label is
+ * the most probable one (the first on ties, as the predictors' own predict decides), and log-loss
+ * and ROC-AUC are computed as well. ROC-AUC is
+ * that of the first label for two classes and the macro average of one-vs-rest AUCs otherwise;
+ * scores are counted in {@link #AUC_BINS} histogram bins, so probabilities closer than
+ * 1/AUC_BINS count as ties.
+ */
+public final class EvaluationEngine {
+
+    public static final int CHUNK_ROWS = 16 * 1024;
+    public static final int AUC_BINS = 4096;
+    // Probability floor keeping the log-loss of a confident miss finite
+    private static final double MIN_PROBABILITY = 1e-15;
+
+    private final Predictor predictor;
+    private final ProbabilisticPredictor probabilistic;
+    private final Schema schema;
+    private final int classCount;
+    private final Map<String, Integer> labelIndex = new HashMap<>();
+    // Predictor probability slot of each schema class, or -1 if the predictor does not know the label
+    private final int[] probabilityIndex;
+    private final int threads;
+
+    // Daemon worker threads shared by every evaluation, created when the first parallel evaluation starts
+    private static final class Workers {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "evaluation-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private EvaluationEngine(Predictor predictor, Schema schema, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.predictor = predictor;
+        this.probabilistic = predictor instanceof ProbabilisticPredictor p ? p : null;
+        this.schema = schema;
+        this.classCount = schema.getClassCount();
+        this.threads = threads;
+        this.probabilityIndex = new int[classCount];
+        List<String> predictorLabels = probabilistic == null ? List.of() : probabilistic.getLabelValues();
+        for (int c = 0; c < classCount; c++) {
+            labelIndex.put(schema.labelOf(c), c);
+            probabilityIndex[c] = predictorLabels.indexOf(schema.labelOf(c));
+        }
+    }
+
+    // Scores the records with one worker per available processor
+    public static AccuracyMetrics.Results evaluate(Predictor predictor, List<Mushroom> data) {
+        return evaluate(predictor, data, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static AccuracyMetrics.Results evaluate(Predictor predictor, List<Mushroom> data, int threads) {
+        if (data.isEmpty()) {
+            return AccuracyMetrics.results(new ConfusionMatrix(List.of()), Double.NaN, Double.NaN);
+        }
+        EvaluationEngine engine = new EvaluationEngine(predictor, data.get(0).getSchema(), threads);
+        if (threads == 1 || data.size() <= CHUNK_ROWS) {
+            Counts counts = engine.new Counts();
+            for (Mushroom record : data) {
+                counts.add(record);
+            }
+            return counts.results();
+        }
+        try {
+            return engine.run(queue -> {
+                for (int from = 0; from < data.size(); from += CHUNK_ROWS) {
+                    List<Mushroom> chunk = data.subList(from, Math.min(data.size(), from + CHUNK_ROWS));
+                    put(queue, counts -> {
+                        for (Mushroom record : chunk) {
+                            counts.add(record);
+                        }
+                    });
+                }
+            });
+        } catch (IOException e) {
+            // Records in memory involve no I/O
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams a CSV file with a header row, laid out in any column order, and scores its rows
+     * under the schema the predictor was trained with. Header names are renamed through aliases;
+     * columns the schema does not know are ignored and attributes missing from the file count as
+     * missing values. Blank lines and rows with an empty label are skipped; rows with a different
+     * number of fields than the header and labels unknown to the schema fail.
+     */
+    public static AccuracyMetrics.Results evaluateCsv(Predictor predictor, Path filePath, Schema schema,
+                                                      Map<String, String> aliases, int threads) throws IOException {
+        EvaluationEngine engine = new EvaluationEngine(predictor, schema, threads);
+        return engine.run(queue -> {
+            try (BufferedReader reader = Files.newBufferedReader(filePath)) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) {
+                    throw new IOException("Missing header row in " + filePath);
+                }
+                Layout layout = engine.layout(headerLine.split(",", -1), aliases);
+                String[] lines = new String[CHUNK_ROWS];
+                int size = 0;
+                // File line number of the chunk's first row; the header is line 1
+                long firstLine = 2;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines[size++] = line;
+                    if (size == CHUNK_ROWS) {
+                        put(queue, csvChunk(layout, lines, size, filePath, firstLine));
+                        lines = new String[CHUNK_ROWS];
+                        size = 0;
+                        firstLine += CHUNK_ROWS;
+                    }
+                }
+                if (size > 0) {
+                    put(queue, csvChunk(layout, lines, size, filePath, firstLine));
+                }
+            }
+        });
+    }
+
+    // Streams a columnar file written by ColumnarFile.Writer, with the same column rules as evaluateCsv
+    public static AccuracyMetrics.Results evaluateColumnar(Predictor predictor, Path filePath, Schema schema,
+                                                           Map<String, String> aliases, int threads) throws IOException {
+        EvaluationEngine engine = new EvaluationEngine(predictor, schema, threads);
+        return engine.run(queue -> {
+            Layout[] layout = new Layout[1];
+            List<String[]> rows = new ArrayList<>(CHUNK_ROWS);
+            ColumnarFile.read(filePath, header -> layout[0] = engine.layout(header, aliases), tokens -> {
+                rows.add(tokens.clone());
+                if (rows.size() == CHUNK_ROWS) {
+                    put(queue, rowChunk(layout[0], new ArrayList<>(rows)));
+                    rows.clear();
+                }
+            });
+            if (!rows.isEmpty()) {
+                put(queue, rowChunk(layout[0], rows));
+            }
+        });
+    }
+
+    private static Chunk csvChunk(Layout layout, String[] lines, int size, Path filePath, long firstLine) {
+        return counts -> {
+            for (int i = 0; i < size; i++) {
+                if (lines[i].isBlank()) {
+                    continue;
+                }
+                String[] tokens = lines[i].split(",", -1);
+                if (tokens.length != layout.attribute.length) {
+                    throw new IllegalArgumentException("Line " + (firstLine + i) + " of " + filePath + " has " + tokens.length
+                            + " fields; the header has " + layout.attribute.length);
+                }
+                if (!tokens[layout.label].isBlank()) {
+                    counts.add(layout.record(tokens));
+                }
+            }
+        };
+    }
+
+    private static Chunk rowChunk(Layout layout, List<String[]> rows) {
+        return counts -> {
+            for (String[] tokens : rows) {
+                counts.add(layout.record(tokens));
+            }
+        };
+    }
+
+    /**
+     * Runs the workers while the producer fills the queue from the calling thread, then merges
+     * the workers' counts. A worker that fails keeps draining the queue so the producer never
+     * blocks; the first failure is rethrown once everything has stopped.
+     */
+    private AccuracyMetrics.Results run(Producer producer) throws IOException {
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(threads * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<Counts>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(Workers.EXECUTOR.submit(() -> {
+                    Counts counts = new Counts();
+                    Chunk chunk;
+                    while ((chunk = queue.take()) != END) {
+                        if (failure.get() != null) {
+                            continue;
+                        }
+                        try {
+                            chunk.evaluate(counts);
+                        } catch (RuntimeException | Error e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                    return counts;
+                }));
+            }
+            try {
+                producer.produce(queue);
+            } catch (IOException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                for (int t = 0; t < threads; t++) {
+                    put(queue, END);
+                }
+            }
+
+            Counts merged = new Counts();
+            for (Future<Counts> worker : workers) {
+                merged.merge(worker.get());
+            }
+            Throwable error = failure.get();
+            if (error instanceof IOException e) {
+                throw e;
+            }
+            if (error instanceof RuntimeException e) {
+                throw e;
+            }
+            if (error instanceof Error e) {
+                throw e;
+            }
+            return merged.results();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation worker failed", e.getCause());
+        } finally {
+            // Stops workers still waiting on the queue after an interrupt; the finished ones are unaffected
+            for (Future<Counts> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating", e);
+        }
+    }
+
+    private Layout layout(String[] header, Map<String, String> aliases) {
+        int label = -1;
+        int[] attribute = new int[header.length];
+        for (int c = 0; c < header.length; c++) {
+            String name = aliases.getOrDefault(header[c].trim(), header[c].trim());
+            attribute[c] = name.equalsIgnoreCase(schema.getLabelColumn()) ? -1 : schema.indexOf(name);
+            if (name.equalsIgnoreCase(schema.getLabelColumn())) {
+                label = c;
+            }
+        }
+        if (label < 0) {
+            throw new IllegalArgumentException("Header has no label column " + schema.getLabelColumn());
+        }
+        return new Layout(label, attribute);
+    }
+
+    // A unit of work for one worker
+    private interface Chunk {
+        void evaluate(Counts counts);
+    }
+
+    private static final Chunk END = counts -> { };
+
+    // Fills the queue with chunks from the calling thread
+    private interface Producer {
+        void produce(BlockingQueue<Chunk> queue) throws IOException;
+    }
+
+    // Position of the label and schema attribute of every column of an input file
+    private final class Layout {
+        final int label;
+        final int[] attribute;
+
+        Layout(int label, int[] attribute) {
+            this.label = label;
+            this.attribute = attribute;
+        }
+
+        Mushroom record(String[] tokens) {
+            String labelValue = tokens[label].trim();
+            int classIndex = schema.classIndexOf(labelValue);
+            if (classIndex < 0) {
+                throw new IllegalArgumentException("Unknown label " + labelValue + "; expected one of " + schema.getLabelValues());
+            }
+            String[] values = new String[schema.getAttributeCount()];
+            for (int c = 0; c < tokens.length && c < attribute.length; c++) {
+                if (attribute[c] >= 0) {
+                    values[attribute[c]] = tokens[c];
+                }
+            }
+            return new Mushroom(schema, classIndex, values);
+        }
+    }
+
+    // Per-worker counters, merged into one at the end
+    private final class Counts {
+        final long[][] confusion = new long[classCount][classCount];
+        // Predictions of labels the schema does not have, by label and actual class
+        final Map<String, long[]> otherPredictions = new HashMap<>();
+        final List<String> predictorLabels = probabilistic == null ? null : probabilistic.getLabelValues();
+        final double[] probabilities = probabilistic == null ? null : new double[predictorLabels.size()];
+        // One-vs-rest score histograms; with two classes the first class's curve is enough
+        final int aucClasses = classCount == 2 ? 1 : classCount;
+        final long[][] positives = probabilistic == null ? null : new long[aucClasses][AUC_BINS];
+        final long[][] negatives = probabilistic == null ? null : new long[aucClasses][AUC_BINS];
+        double logLossSum;
+
+        void add(Mushroom record) {
+            int actual = record.getClassIndex();
+            if (probabilities == null) {
+                count(actual, predictor.predict(record));
+                return;
+            }
+            probabilistic.predictProba(record, probabilities);
+            int best = 0;
+            for (int slot = 1; slot < probabilities.length; slot++) {
+                if (probabilities[slot] > probabilities[best]) {
+                    best = slot;
+                }
+            }
+            count(actual, predictorLabels.get(best));
+            logLossSum -= Math.log(Math.max(probability(actual), MIN_PROBABILITY));
+            for (int c = 0; c < aucClasses; c++) {
+                int bin = Math.min(AUC_BINS - 1, (int) (probability(c) * AUC_BINS));
+                (c == actual ? positives : negatives)[c][Math.max(bin, 0)]++;
+            }
+        }
+
+        private void count(int actual, String label) {
+            Integer predicted = labelIndex.get(label);
+            if (predicted != null) {
+                confusion[actual][predicted]++;
+            } else {
+                otherPredictions.computeIfAbsent(label, l -> new long[classCount])[actual]++;
+            }
+        }
+
+        private double probability(int classIndex) {
+            int slot = probabilityIndex[classIndex];
+            return slot < 0 ? 0.0 : probabilities[slot];
+        }
+
+        void merge(Counts other) {
+            for (int a = 0; a < classCount; a++) {
+                for (int p = 0; p < classCount; p++) {
+                    confusion[a][p] += other.confusion[a][p];
+                }
+            }
+            for (Map.Entry<String, long[]> entry : other.otherPredictions.entrySet()) {
+                long[] counts = otherPredictions.computeIfAbsent(entry.getKey(), l -> new long[classCount]);
+                for (int a = 0; a < classCount; a++) {
+                    counts[a] += entry.getValue()[a];
+                }
+            }
+            if (positives != null) {
+                for (int c = 0; c < aucClasses; c++) {
+                    for (int b = 0; b < AUC_BINS; b++) {
+                        positives[c][b] += other.positives[c][b];
+                        negatives[c][b] += other.negatives[c][b];
+                    }
+                }
+            }
+            logLossSum += other.logLossSum;
+        }
+
+        AccuracyMetrics.Results results() {
+            List<String> labels = new ArrayList<>();
+            for (int c = 0; c < classCount; c++) {
+                labels.add(schema.labelOf(c));
+            }
+            ConfusionMatrix matrix = new ConfusionMatrix(labels);
+            for (int a = 0; a < classCount; a++) {
+                for (int p = 0; p < classCount; p++) {
+                    if (confusion[a][p] > 0) {
+                        matrix.add(a, p, confusion[a][p]);
+                    }
+                }
+            }
+            for (Map.Entry<String, long[]> entry : otherPredictions.entrySet()) {
+                for (int a = 0; a < classCount; a++) {
+                    if (entry.getValue()[a] > 0) {
+                        matrix.add(labels.get(a), entry.getKey(), entry.getValue()[a]);
+                    }
+                }
+            }
+            double rocAuc = Double.NaN;
+            double logLoss = Double.NaN;
+            if (positives != null && matrix.getTotal() > 0) {
+                logLoss = logLossSum / matrix.getTotal();
+                rocAuc = macroAuc();
+            }
+            return AccuracyMetrics.results(matrix, rocAuc, logLoss);
+        }
+
+        // Mean of the per-class AUCs over the classes with both positive and negative records
+        private double macroAuc() {
+            double sum = 0.0;
+            int defined = 0;
+            for (int c = 0; c < aucClasses; c++) {
+                double auc = auc(positives[c], negatives[c]);
+                if (!Double.isNaN(auc)) {
+                    sum += auc;
+                    defined++;
+                }
+            }
+            return defined == 0 ? Double.NaN : sum / defined;
+        }
+    }
+
+    /**
+     * Area under the ROC curve from score histograms: the chance that a random positive scores
+     * above a random negative, with records in the same bin counted as half.
+     */
+    static double auc(long[] positives, long[] negatives) {
+        long totalPositives = 0;
+        long totalNegatives = 0;
+        for (int b = 0; b < positives.length; b++) {
+            totalPositives += positives[b];
+            totalNegatives += negatives[b];
+        }
+        if (totalPositives == 0 || totalNegatives == 0) {
+            return Double.NaN;
+        }
+        double area = 0.0;
+        long negativesBelow = 0;
+        for (int b = 0; b < positives.length; b++) {
+            area += positives[b] * (negativesBelow + negatives[b] / 2.0);
+            negativesBelow += negatives[b];
+        }
+        return area / ((double) totalPositives * totalNegatives);
+    }
+}
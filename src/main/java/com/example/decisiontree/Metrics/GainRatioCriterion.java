@@ -0,0 +1,22 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * C4.5 gain ratio: information gain divided by the split information, which penalises
+ * attributes with many small partitions.
+ */
+public class GainRatioCriterion implements SplitCriterion {
+
+    @Override
+    public double score(ContingencyTable table) {
+        double splitInfo = table.splitInfo();
+        if (splitInfo == 0.0) {
+            return 0.0;
+        }
+        return (table.parentEntropy() - table.weightedChildEntropy()) / splitInfo;
+    }
+
+    @Override
+    public String getName() {
+        return "Gain Ratio";
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * CART impurity decrease: parent Gini impurity minus the size-weighted Gini impurity of the
+ * children. Needs no logarithms at all.
+ */
+public class GiniCriterion implements SplitCriterion {
+
+    @Override
+    public double score(ContingencyTable table) {
+        long total = table.getTotal();
+        if (total == 0) {
+            return 0.0;
+        }
+        // Gini(S) = 1 - sum p^2, so the weighted child impurity is 1 - (1/N) sum_v (sum_c n_vc^2) / n_v
+        double childPurity = 0.0;
+        for (int v = 0; v < table.getValueCount(); v++) {
+            long valueTotal = table.getValueTotal(v);
+            if (valueTotal == 0) {
+                continue;
+            }
+            double squares = 0.0;
+            for (long count : table.getCounts(v)) {
+                squares += (double) count * count;
+            }
+            childPurity += squares / valueTotal;
+        }
+        double parentSquares = 0.0;
+        for (long count : table.getClassTotals()) {
+            parentSquares += (double) count * count;
+        }
+        return (childPurity - parentSquares / total) / total;
+    }
+
+    @Override
+    public String getName() {
+        return "Gini";
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * ID3 information gain: parent entropy minus the size-weighted entropy of the children.
+ */
+public class InfoGainCriterion implements SplitCriterion {
+
+    @Override
+    public double score(ContingencyTable table) {
+        return table.parentEntropy() - table.weightedChildEntropy();
+    }
+
+    @Override
+    public String getName() {
+        return "Information Gain";
+    }
+}
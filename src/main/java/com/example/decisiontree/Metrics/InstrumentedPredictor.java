@@ -0,0 +1,119 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.PredictionListener;
+import com.example.decisiontree.Tree.Predictor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional metrics wrapper around DecisionTree.predict. Records a latency histogram, the
+ * distribution of path depths, how often traversal hit an unseen value and fell back to the
+ * default label, and overall throughput. All counters are striped, so one instance can be shared
+ * by any number of scoring threads.
+ */
+public class InstrumentedPredictor implements Predictor, PredictionListener {
+
+    private static final int MAX_TRACKED_DEPTH = 64;
+
+    private final DecisionTree decisionTree;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder[] depthCounts = new LongAdder[MAX_TRACKED_DEPTH + 1];
+    private final LongAdder fallbackHits = new LongAdder();
+    private final LongAdder predictions = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    public InstrumentedPredictor(DecisionTree decisionTree) {
+        this.decisionTree = decisionTree;
+        for (int i = 0; i < depthCounts.length; i++) {
+            depthCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public String predict(Mushroom record) {
+        long start = System.nanoTime();
+        String label = decisionTree.predict(record, this);
+        latency.record(System.nanoTime() - start);
+        return label;
+    }
+
+    @Override
+    public void onPrediction(int depth, boolean fallback) {
+        predictions.increment();
+        depthCounts[Math.min(depth, MAX_TRACKED_DEPTH)].increment();
+        if (fallback) {
+            fallbackHits.increment();
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getPredictionCount() {
+        return predictions.sum();
+    }
+
+    public long getFallbackHits() {
+        return fallbackHits.sum();
+    }
+
+    // Number of predictions whose path ended at the given depth (the last bucket collects deeper paths)
+    public long getDepthCount(int depth) {
+        return depthCounts[Math.min(depth, MAX_TRACKED_DEPTH)].sum();
+    }
+
+    // Predictions per second since construction or the last reset
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0.0 : predictions.sum() / seconds;
+    }
+
+    public void reset() {
+        latency.reset();
+        for (LongAdder depthCount : depthCounts) {
+            depthCount.reset();
+        }
+        fallbackHits.reset();
+        predictions.reset();
+        startNanos = System.nanoTime();
+    }
+
+    // Exports the current counters as a JSON object, latencies in nanoseconds
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\n");
+        sb.append("  \"predictions\": ").append(getPredictionCount()).append(",\n");
+        sb.append("  \"predictionsPerSecond\": ").append(String.format("%.1f", getThroughput())).append(",\n");
+        sb.append("  \"fallbackHits\": ").append(getFallbackHits()).append(",\n");
+        sb.append("  \"latencyNanos\": {")
+                .append("\"mean\": ").append(String.format("%.1f", latency.getMean()))
+                .append(", \"p50\": ").append(latency.getValueAtPercentile(50))
+                .append(", \"p90\": ").append(latency.getValueAtPercentile(90))
+                .append(", \"p99\": ").append(latency.getValueAtPercentile(99))
+                .append(", \"p999\": ").append(latency.getValueAtPercentile(99.9))
+                .append(", \"max\": ").append(latency.getMax())
+                .append("},\n");
+        sb.append("  \"depths\": {");
+        boolean first = true;
+        for (int d = 0; d < depthCounts.length; d++) {
+            long count = depthCounts[d].sum();
+            if (count == 0) {
+                continue;
+            }
+            sb.append(first ? "" : ", ").append('"').append(d).append("\": ").append(count);
+            first = false;
+        }
+        sb.append("}\n}");
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Predictions=%d, p50=%dns, p99=%dns, Fallbacks=%d, Throughput=%.0f/s",
+                getPredictionCount(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                getFallbackHits(), getThroughput());
+    }
+}
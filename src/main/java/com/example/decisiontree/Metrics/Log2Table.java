@@ -0,0 +1,43 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * Precomputed n * log2(n) for small integer counts.
+ *
+ * Entropy over integer counts can be written as (N log2 N - sum c log2 c) / N, so with this table
+ * scoring a split needs no logarithm at all as long as the counts stay below {@link #SIZE}.
+ */
+public final class Log2Table {
+
+    public static final int SIZE = 1 << 16;
+    private static final double LN2 = Math.log(2);
+    private static final double[] N_LOG2_N = new double[SIZE];
+
+    static {
+        for (int n = 1; n < SIZE; n++) {
+            N_LOG2_N[n] = n * (Math.log(n) / LN2);
+        }
+    }
+
+    private Log2Table() {
+    }
+
+    // n * log2(n), with 0 * log2(0) = 0
+    public static double nLog2n(long n) {
+        if (n < SIZE) {
+            return N_LOG2_N[(int) n];
+        }
+        return n * (Math.log(n) / LN2);
+    }
+
+    // Entropy in bits of a distribution given by integer counts summing to total
+    public static double entropy(long[] counts, long total) {
+        if (total == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (long count : counts) {
+            sum += nLog2n(count);
+        }
+        return (nLog2n(total) - sum) / total;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Tree.ProbabilisticPredictor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Permutation importance: the drop in accuracy when the values of one attribute are shuffled
+ * across the records, breaking its link to the label while keeping its distribution.
+ *
+ * Attributes are scored in parallel, each scoring the whole data through the predictor's batch
+ * probability path with its own seeded shuffle, so results do not depend on the thread count.
+ * Records are not copied; a permuted record is a view taking one value from another record.
+ */
+public class PermutationImportance {
+
+    private PermutationImportance() {
+    }
+
+    // Accuracy drop per attribute, in attribute order, with one worker per available processor
+    public static Map<String, Double> compute(ProbabilisticPredictor predictor, List<Mushroom> data,
+                                              List<String> attributes, long seed) {
+        return compute(predictor, data, attributes, seed, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Accuracy drop per attribute, in attribute order; negative when shuffling happened to help
+    public static Map<String, Double> compute(ProbabilisticPredictor predictor, List<Mushroom> data,
+                                              List<String> attributes, long seed, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        double baseline = accuracy(predictor, data);
+        double[] drops = new double[attributes.size()];
+        if (threads > 1 && attributes.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.submit(() -> IntStream.range(0, attributes.size()).parallel()
+                        .forEach(a -> drops[a] = baseline - permutedAccuracy(predictor, data, attributes.get(a), seed, a))).join();
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int a = 0; a < attributes.size(); a++) {
+                drops[a] = baseline - permutedAccuracy(predictor, data, attributes.get(a), seed, a);
+            }
+        }
+        Map<String, Double> importances = new LinkedHashMap<>();
+        for (int a = 0; a < attributes.size(); a++) {
+            importances.put(attributes.get(a), drops[a]);
+        }
+        return importances;
+    }
+
+    private static double permutedAccuracy(ProbabilisticPredictor predictor, List<Mushroom> data,
+                                           String attribute, long seed, int attributeIndex) {
+        // Fisher-Yates shuffle of the row order, seeded per attribute
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (attributeIndex + 1)));
+        int[] donors = new int[data.size()];
+        for (int i = 0; i < donors.length; i++) {
+            donors[i] = i;
+        }
+        for (int i = donors.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = donors[i];
+            donors[i] = donors[j];
+            donors[j] = swap;
+        }
+        List<Mushroom> permuted = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++) {
+            permuted.add(new PermutedRecord(data.get(i), data.get(donors[i]), attribute));
+        }
+        return accuracy(predictor, permuted);
+    }
+
+    // Share of records whose most probable label is their actual label
+    static double accuracy(ProbabilisticPredictor predictor, List<Mushroom> data) {
+        if (data.isEmpty()) {
+            return 0.0;
+        }
+        List<String> labels = predictor.getLabelValues();
+        int classCount = labels.size();
+        double[] probabilities = new double[data.size() * classCount];
+        predictor.predictProba(data, probabilities);
+        long correct = 0;
+        for (int i = 0; i < data.size(); i++) {
+            int best = 0;
+            for (int c = 1; c < classCount; c++) {
+                if (probabilities[i * classCount + c] > probabilities[i * classCount + best]) {
+                    best = c;
+                }
+            }
+            if (labels.get(best).equalsIgnoreCase(data.get(i).getLabel())) {
+                correct++;
+            }
+        }
+        return (double) correct / data.size();
+    }
+
+    // A record with the value of one attribute taken from another record
+    private static class PermutedRecord extends Mushroom {
+        private final Mushroom record;
+        private final Mushroom donor;
+        private final String attribute;
+        private final int index;
+
+        PermutedRecord(Mushroom record, Mushroom donor, String attribute) {
+            super(record.getSchema());
+            this.record = record;
+            this.donor = donor;
+            this.attribute = attribute;
+            this.index = record.getSchema().indexOf(attribute);
+        }
+
+        @Override
+        public int getClassIndex() {
+            return record.getClassIndex();
+        }
+
+        @Override
+        public String getValue(int i) {
+            return i == index ? donor.getValue(attribute) : record.getValue(i);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.decisiontree.Metrics;
+
+/**
+ * Scores a candidate split from its contingency counts. Higher scores are better.
+ */
+public interface SplitCriterion {
+
+    SplitCriterion INFO_GAIN = new InfoGainCriterion();
+    SplitCriterion GAIN_RATIO = new GainRatioCriterion();
+    SplitCriterion GINI = new GiniCriterion();
+    SplitCriterion CHI_SQUARE = new ChiSquareCriterion();
+
+    double score(ContingencyTable table);
+
+    String getName();
+}
@@ -0,0 +1,173 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.Tree.TrainingListener;
+
+import java.util.Arrays;
+
+/**
+ * Default in-memory TrainingListener. Aggregates node counts per depth and time, allocation
+ * and rows scanned per phase across every build it is attached to, and exports them as JSON.
+ */
+public class TrainingMetrics implements TrainingListener {
+
+    private static final TrainingListener.Phase[] PHASES = TrainingListener.Phase.values();
+
+    private long trainings;
+    private long trainingNanos;
+    private long trainingRows;
+
+    private long[] internalNodesByDepth = new long[8];
+    private long[] leafNodesByDepth = new long[8];
+    private long[] rowsByDepth = new long[8];
+    private long[][] phaseNanosByDepth = new long[8][PHASES.length];
+
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] phaseBytes = new long[PHASES.length];
+    private final long[] phaseRowsScanned = new long[PHASES.length];
+    private final long[] phaseCalls = new long[PHASES.length];
+    private boolean allocationSupported = true;
+
+    @Override
+    public synchronized void onTrainingStarted(int rows, int attributes) {
+        trainings++;
+        trainingRows += rows;
+    }
+
+    @Override
+    public synchronized void onNode(int depth, int rows, boolean leaf) {
+        ensureDepth(depth);
+        if (leaf) {
+            leafNodesByDepth[depth]++;
+        } else {
+            internalNodesByDepth[depth]++;
+        }
+        rowsByDepth[depth] += rows;
+    }
+
+    @Override
+    public synchronized void onPhase(TrainingListener.Phase phase, int depth, long nanos, long allocatedBytes, long rowsScanned) {
+        ensureDepth(depth);
+        int p = phase.ordinal();
+        phaseCalls[p]++;
+        phaseNanos[p] += nanos;
+        phaseRowsScanned[p] += rowsScanned;
+        phaseNanosByDepth[depth][p] += nanos;
+        if (allocatedBytes < 0) {
+            allocationSupported = false;
+        } else {
+            phaseBytes[p] += allocatedBytes;
+        }
+    }
+
+    @Override
+    public synchronized void onTrainingFinished(long nanos) {
+        trainingNanos += nanos;
+    }
+
+    public synchronized long getNodeCount() {
+        long count = 0;
+        for (int d = 0; d < internalNodesByDepth.length; d++) {
+            count += internalNodesByDepth[d] + leafNodesByDepth[d];
+        }
+        return count;
+    }
+
+    public synchronized long getPhaseNanos(TrainingListener.Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public synchronized long getPhaseAllocatedBytes(TrainingListener.Phase phase) {
+        return allocationSupported ? phaseBytes[phase.ordinal()] : -1;
+    }
+
+    public synchronized long getPhaseRowsScanned(TrainingListener.Phase phase) {
+        return phaseRowsScanned[phase.ordinal()];
+    }
+
+    public synchronized void reset() {
+        trainings = 0;
+        trainingNanos = 0;
+        trainingRows = 0;
+        internalNodesByDepth = new long[8];
+        leafNodesByDepth = new long[8];
+        rowsByDepth = new long[8];
+        phaseNanosByDepth = new long[8][PHASES.length];
+        Arrays.fill(phaseNanos, 0);
+        Arrays.fill(phaseBytes, 0);
+        Arrays.fill(phaseRowsScanned, 0);
+        Arrays.fill(phaseCalls, 0);
+        allocationSupported = true;
+    }
+
+    // Exports all counters as a JSON object
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("{\n");
+        sb.append("  \"trainings\": ").append(trainings).append(",\n");
+        sb.append("  \"trainingNanos\": ").append(trainingNanos).append(",\n");
+        sb.append("  \"trainingRows\": ").append(trainingRows).append(",\n");
+        sb.append("  \"nodes\": ").append(getNodeCount()).append(",\n");
+
+        sb.append("  \"phases\": {");
+        for (int p = 0; p < PHASES.length; p++) {
+            sb.append(p == 0 ? "\n" : ",\n");
+            sb.append("    \"").append(PHASES[p].name()).append("\": {")
+                    .append("\"calls\": ").append(phaseCalls[p])
+                    .append(", \"nanos\": ").append(phaseNanos[p])
+                    .append(", \"allocatedBytes\": ").append(allocationSupported ? phaseBytes[p] : -1)
+                    .append(", \"rowsScanned\": ").append(phaseRowsScanned[p])
+                    .append('}');
+        }
+        sb.append("\n  },\n");
+
+        sb.append("  \"depths\": [");
+        int maxDepth = deepestRecordedDepth();
+        for (int d = 0; d <= maxDepth; d++) {
+            sb.append(d == 0 ? "\n" : ",\n");
+            sb.append("    {\"depth\": ").append(d)
+                    .append(", \"internalNodes\": ").append(internalNodesByDepth[d])
+                    .append(", \"leafNodes\": ").append(leafNodesByDepth[d])
+                    .append(", \"rows\": ").append(rowsByDepth[d])
+                    .append(", \"phaseNanos\": {");
+            for (int p = 0; p < PHASES.length; p++) {
+                if (p > 0) {
+                    sb.append(", ");
+                }
+                sb.append('"').append(PHASES[p].name()).append("\": ").append(phaseNanosByDepth[d][p]);
+            }
+            sb.append("}}");
+        }
+        sb.append(maxDepth >= 0 ? "\n  ]\n" : "]\n");
+        sb.append('}');
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    private int deepestRecordedDepth() {
+        for (int d = internalNodesByDepth.length - 1; d >= 0; d--) {
+            if (internalNodesByDepth[d] + leafNodesByDepth[d] > 0) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureDepth(int depth) {
+        if (depth < internalNodesByDepth.length) {
+            return;
+        }
+        int size = Math.max(depth + 1, internalNodesByDepth.length * 2);
+        internalNodesByDepth = Arrays.copyOf(internalNodesByDepth, size);
+        leafNodesByDepth = Arrays.copyOf(leafNodesByDepth, size);
+        rowsByDepth = Arrays.copyOf(rowsByDepth, size);
+        long[][] grown = Arrays.copyOf(phaseNanosByDepth, size);
+        for (int d = phaseNanosByDepth.length; d < size; d++) {
+            grown[d] = new long[PHASES.length];
+        }
+        phaseNanosByDepth = grown;
+    }
+}
@@ -3,7 +3,9 @@ package com.example.decisiontree;
 import com.example.decisiontree.DataSet.Mushroom;
 import com.example.decisiontree.DataSet.MushroomDataSet;
 import com.example.decisiontree.Metrics.AccuracyMetrics;
+import com.example.decisiontree.Metrics.SplitCriterion;
 import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.TreeHash;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -15,8 +17,6 @@ import javafx.stage.Stage;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.nio.file.Paths;
 import java.util.*;
 
 public class MushroomDecisionTree extends Application {
@@ -25,18 +25,14 @@ public class MushroomDecisionTree extends Application {
     private TableView<Map.Entry<String, Double>> gainTable;
     private TableView<Map.Entry<String, Double>> entropyTable;
     private TextField txtAccuracy, txtPrecision, txtRecall, txtF1Score;
-    private RadioButton rbInfoGain, rbGainRatio, rbTrainingOutput, rbTestingOutput;
+    private RadioButton rbInfoGain, rbGainRatio, rbGini, rbChiSquare, rbTrainingOutput, rbTestingOutput;
     private MushroomDataSet dataSet;
     private List<Mushroom> trainingData, testData;
     private DecisionTree builtDecisionTree;
     private Button btnBuildTree;
-
-    private static final List<String> ALL_ATTRIBUTES = Arrays.asList(
-            "CAP-SHAPE","CAP-SURFACE","CAP-COLOR","BRUISES","ODOR","GILL-ATTACHMENT","GILL-SPACING",
-            "GILL-SIZE","GILL-COLOR","STALK-SHAPE","STALK-ROOT","STALK-SURFACE-ABOVE-RING",
-            "STALK-SRFACE-UNDER-RING","STALK-COLOR-ABOVE-RING","STALK-COLOR-BELOW-RING",
-            "VEIL-TYPE","VEIL-COLOR","RING-NUMBER","RING-TYPE","SPORE-PRINT-COLOR","POPULATION","HABITAT"
-    );
+    private CheckBox cbBinarySplits;
+    private CheckBox cbScreenAttributes;
+    private CheckBox cbReproducible;
 
     @Override
     public void start(Stage primaryStage) {
@@ -69,11 +65,20 @@ public class MushroomDecisionTree extends Application {
         ToggleGroup metricToggleGroup = new ToggleGroup();
         rbInfoGain = new RadioButton("Information Gain");
         rbGainRatio = new RadioButton("Gain Ratio");
+        rbGini = new RadioButton("Gini");
+        rbChiSquare = new RadioButton("Chi-Square");
         rbInfoGain.setToggleGroup(metricToggleGroup);
         rbGainRatio.setToggleGroup(metricToggleGroup);
+        rbGini.setToggleGroup(metricToggleGroup);
+        rbChiSquare.setToggleGroup(metricToggleGroup);
         rbInfoGain.setSelected(true);
 
-        HBox metricToggleBox = new HBox(10, new Label("Select Algorithm:"), rbInfoGain, rbGainRatio);
+        cbBinarySplits = new CheckBox("Binary Splits");
+        cbScreenAttributes = new CheckBox("Screen Attributes");
+        cbReproducible = new CheckBox("Reproducible");
+
+        HBox metricToggleBox = new HBox(10, new Label("Select Algorithm:"), rbInfoGain, rbGainRatio, rbGini, rbChiSquare, cbBinarySplits,
+                cbScreenAttributes, cbReproducible);
         metricToggleBox.setAlignment(Pos.CENTER_LEFT);
 
         btnBuildTree = new Button("Build Tree");
@@ -130,8 +135,11 @@ public class MushroomDecisionTree extends Application {
     private void buildDecisionTree() {
         btnBuildTree.setDisable(true);
 
-        boolean useGainRatio = rbGainRatio.isSelected();
+        SplitCriterion criterion = selectedCriterion();
         builtDecisionTree = new DecisionTree();
+        builtDecisionTree.setBinarySplits(cbBinarySplits.isSelected());
+        builtDecisionTree.setScreenAttributes(cbScreenAttributes.isSelected());
+        builtDecisionTree.setReproducible(cbReproducible.isSelected());
 
         gainTable.getItems().clear();
         entropyTable.getItems().clear();
@@ -139,8 +147,8 @@ public class MushroomDecisionTree extends Application {
 
         builtDecisionTree.buildTreeWithMetrics(
                 trainingData,
-                new ArrayList<>(ALL_ATTRIBUTES),
-                useGainRatio,
+                new ArrayList<>(dataSet.getAttributes()),
+                criterion,
                 (splitPhase, metrics) -> Platform.runLater(() -> {
                     for (Map.Entry<String, Double> gainEntry : metrics.getGains().entrySet()) {
                         gainTable.getItems().add(new AbstractMap.SimpleEntry<>(
@@ -163,7 +171,25 @@ public class MushroomDecisionTree extends Application {
 
         btnBuildTree.setDisable(false);
 
-        showAlert(Alert.AlertType.INFORMATION, "Tree Built", "Decision tree has been built successfully.");
+        String message = "Decision tree has been built successfully.";
+        if (builtDecisionTree.getAttributeScreening() != null) {
+            message += "\n\n" + builtDecisionTree.getAttributeScreening();
+        }
+        message += "\n\nModel hash: " + TreeHash.of(builtDecisionTree);
+        showAlert(Alert.AlertType.INFORMATION, "Tree Built", message);
+    }
+
+    private SplitCriterion selectedCriterion() {
+        if (rbGainRatio.isSelected()) {
+            return SplitCriterion.GAIN_RATIO;
+        }
+        if (rbGini.isSelected()) {
+            return SplitCriterion.GINI;
+        }
+        if (rbChiSquare.isSelected()) {
+            return SplitCriterion.CHI_SQUARE;
+        }
+        return SplitCriterion.INFO_GAIN;
     }
 
     private void calculateAndDisplayMetrics() {
@@ -265,12 +291,12 @@ public class MushroomDecisionTree extends Application {
 
     private boolean loadData() {
         try {
-            dataSet.loadData(Paths.get(getClass().getResource("/mushroom.csv").toURI()));
+            dataSet.loadResource(MushroomDataSet.RESOURCE);
             dataSet.splitTrainingTest(0.1);
             trainingData = dataSet.getTrainingData();
             testData = dataSet.getTestData();
             return true;
-        } catch (IOException | URISyntaxException e) {
+        } catch (IOException e) {
             e.printStackTrace();
             showAlert(Alert.AlertType.ERROR, "Data Loading Error", "Failed to load data.");
             return false;
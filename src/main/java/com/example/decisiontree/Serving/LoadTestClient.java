@@ -0,0 +1,145 @@
+package com.example.decisiontree.Serving;
+
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator for the {@link ScoringServer}: each thread sends CSV requests of
+ * --batch records taken round-robin from a data file, one after another, until --requests have
+ * been sent in total, then the client reports throughput and latency percentiles.
+ * <pre>
+ *   [--url http://localhost:8080] [--model mushroom] [--data FILE] [--threads 8]
+ *   [--requests 10000] [--batch 1] [--proba false]
+ * </pre>
+ * Without --data the bundled mushroom.csv is sent.
+ */
+public class LoadTestClient {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        String url = options.getOrDefault("--url", "http://localhost:8080") + "/predict/"
+                + options.getOrDefault("--model", "mushroom")
+                + (Boolean.parseBoolean(options.getOrDefault("--proba", "false")) ? "?proba=true" : "");
+        int threads = Integer.parseInt(options.getOrDefault("--threads", "8"));
+        int requests = Integer.parseInt(options.getOrDefault("--requests", "10000"));
+        int batch = Integer.parseInt(options.getOrDefault("--batch", "1"));
+        if (threads < 1 || requests < 1 || batch < 1) {
+            throw new IllegalArgumentException("threads, requests and batch must be at least 1");
+        }
+
+        List<String> lines = options.containsKey("--data")
+                ? Files.readAllLines(Paths.get(options.get("--data")))
+                : resourceLines(MushroomDataSet.RESOURCE);
+        String header = lines.get(0);
+        List<String> rows = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.isBlank()) {
+                rows.add(line);
+            }
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        AtomicInteger issued = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    int request;
+                    while ((request = issued.getAndIncrement()) < requests) {
+                        byte[] body = body(header, rows, request * batch, batch);
+                        long sent = System.nanoTime();
+                        if (post(url, body)) {
+                            latency.record(System.nanoTime() - sent);
+                        } else {
+                            failures.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long completed = latency.getCount();
+        System.out.printf("Requests=%d, Failures=%d, Records=%d in %.2fs%n", completed, failures.sum(), completed * batch, seconds);
+        System.out.printf("Throughput=%.0f req/s (%.0f rec/s)%n", completed / seconds, completed * batch / seconds);
+        System.out.printf("Latency mean=%.0fus p50=%dus p99=%dus p999=%dus max=%dus%n",
+                latency.getMean() / 1e3, micros(latency.getValueAtPercentile(50)), micros(latency.getValueAtPercentile(99)),
+                micros(latency.getValueAtPercentile(99.9)), micros(latency.getMax()));
+    }
+
+    // Lines of a classpath resource, read as a stream so the bundled data is found inside a jar too
+    private static List<String> resourceLines(String name) throws IOException {
+        try (InputStream in = LoadTestClient.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new FileNotFoundException("No resource " + name);
+            }
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)).lines().toList();
+        }
+    }
+
+    // CSV request of count rows starting at the given position, wrapping around the data
+    private static byte[] body(String header, List<String> rows, int first, int count) {
+        StringBuilder sb = new StringBuilder(header).append('\n');
+        for (int i = 0; i < count; i++) {
+            sb.append(rows.get(Math.floorMod(first + i, rows.size()))).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean post(String url, byte[] body) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", ScoringServer.CSV);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            // Drain the response so the keep-alive connection is reused
+            try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    in.transferTo(new ByteArrayOutputStream());
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
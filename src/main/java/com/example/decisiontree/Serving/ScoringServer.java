@@ -0,0 +1,562 @@
+package com.example.decisiontree.Serving;
+
+import com.example.decisiontree.DataSet.ColumnarFile;
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.DataSet.Schema;
+import com.example.decisiontree.Metrics.LatencyHistogram;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.ModelRegistry;
+import com.example.decisiontree.Tree.ProbabilisticPredictor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded HTTP scoring server for the models of a {@link ModelRegistry}.
+ *
+ * Endpoints:
+ * <pre>
+ *   POST /predict/{model}[?proba=true]  CSV with a header row, or a columnar file sent as
+ *                                       application/octet-stream; one response line per record
+ *                                       with the model's predicted label, followed by the class
+ *                                       probabilities when asked for
+ *   GET  /models                        registered models with their version and load state
+ *   GET  /metrics                       request, record and batch counts, throughput and latency
+ * </pre>
+ * Requests are parsed on their own threads, virtual ones where the runtime has them. Their records
+ * are then queued for batcher threads, which coalesce concurrent requests into micro-batches of up
+ * to maxBatchRows records, waiting at most maxBatchDelayMicros for more. Labels come from the
+ * model's own predict, so they match in-process predictions; the probabilities of the requests
+ * asking for them are scored with one batch predictProba call per model. A request that finds
+ * maxQueuedRequests requests already waiting gets 503, so overload is turned away instead of
+ * building up in the heap. Values are matched as the model was trained, so numeric attributes
+ * must be sent as their bin labels.
+ *
+ * Launch the JVM with -Dsun.net.httpserver.nodelay=true when embedding the server: without
+ * TCP_NODELAY small responses wait on delayed ACKs, adding about 40ms to every request. The JDK
+ * reads the flag once, when the first HttpServer is created, so it cannot be set from here.
+ * {@link #main} sets it for the standalone server.
+ */
+public class ScoringServer implements Closeable {
+
+    public static final String CSV = "text/csv";
+    public static final String COLUMNAR = "application/octet-stream";
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    // Distinct request headers whose schemas are kept; schemas of further headers are built per request
+    static final int MAX_CACHED_SCHEMAS = 256;
+
+    private final ModelRegistry registry;
+    private int port = 8080;
+    private int maxBatchRows = 1024;
+    private long maxBatchDelayMicros = 200;
+    private int batcherThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int requestThreads = 64;
+    private String labelColumn = MushroomDataSet.LABEL_COLUMN;
+    private int maxQueuedRequests = 4096;
+
+    private BlockingQueue<Pending> queue;
+    private final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+    private final List<Thread> batchers = new ArrayList<>();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram batchSizes = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile long startNanos;
+
+    // A parsed request waiting for its batch; END stops a batcher
+    private static final class Pending {
+        final String model;
+        final List<Mushroom> records;
+        final boolean proba;
+        final CompletableFuture<Scores> result = new CompletableFuture<>();
+
+        Pending(String model, List<Mushroom> records, boolean proba) {
+            this.model = model;
+            this.records = records;
+            this.proba = proba;
+        }
+    }
+
+    private static final Pending END = new Pending(null, List.of(), false);
+
+    // Predicted labels of a request's records, and their class probabilities laid out as record * labels.size() + class if asked for
+    private static final class Scores {
+        final List<String> labels;
+        final String[] predicted;
+        final double[] probabilities;
+
+        Scores(List<String> labels, String[] predicted, double[] probabilities) {
+            this.labels = labels;
+            this.predicted = predicted;
+            this.probabilities = probabilities;
+        }
+    }
+
+    public ScoringServer(ModelRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Port to listen on; 0 picks a free one, see getPort()
+    public void setPort(int port) {
+        this.port = requireAtLeast(port, 0, "port");
+    }
+
+    public void setMaxBatchRows(int maxBatchRows) {
+        this.maxBatchRows = requireAtLeast(maxBatchRows, 1, "maxBatchRows");
+    }
+
+    // How long a batcher waits for more requests once it has one; 0 scores whatever is queued at once
+    public void setMaxBatchDelayMicros(long maxBatchDelayMicros) {
+        if (maxBatchDelayMicros < 0) {
+            throw new IllegalArgumentException("maxBatchDelayMicros must be at least 0");
+        }
+        this.maxBatchDelayMicros = maxBatchDelayMicros;
+    }
+
+    public void setBatcherThreads(int batcherThreads) {
+        this.batcherThreads = requireAtLeast(batcherThreads, 1, "batcherThreads");
+    }
+
+    // Size of the request thread pool on runtimes without virtual threads
+    public void setRequestThreads(int requestThreads) {
+        this.requestThreads = requireAtLeast(requestThreads, 1, "requestThreads");
+    }
+
+    // Requests that may wait for a batcher; further requests are turned away with 503 until the queue drains
+    public void setMaxQueuedRequests(int maxQueuedRequests) {
+        this.maxQueuedRequests = requireAtLeast(maxQueuedRequests, 1, "maxQueuedRequests");
+    }
+
+    // Column of request headers to ignore, e.g. the label column of a test file
+    public void setLabelColumn(String labelColumn) {
+        this.labelColumn = labelColumn;
+    }
+
+    private static int requireAtLeast(int value, int min, String name) {
+        if (value < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min);
+        }
+        return value;
+    }
+
+    public void start() throws IOException {
+        queue = new LinkedBlockingQueue<>(maxQueuedRequests);
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/predict/", this::handlePredict);
+        server.createContext("/models", this::handleModels);
+        server.createContext("/metrics", this::handleMetrics);
+        requestExecutor = requestExecutor(requestThreads);
+        server.setExecutor(requestExecutor);
+        for (int i = 0; i < batcherThreads; i++) {
+            Thread batcher = new Thread(this::runBatcher, "scoring-batcher-" + i);
+            batcher.setDaemon(true);
+            batcher.start();
+            batchers.add(batcher);
+        }
+        startNanos = System.nanoTime();
+        server.start();
+    }
+
+    // One virtual thread per request on runtimes that have them (Java 21 and later), otherwise a fixed pool
+    static ExecutorService requestExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    // Port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        try {
+            // The batchers keep draining the queue, so the end markers always find room
+            for (int i = 0; i < batchers.size(); i++) {
+                queue.put(END);
+            }
+            for (Thread batcher : batchers) {
+                batcher.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        requestExecutor.shutdown();
+        server = null;
+    }
+
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            try {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    respond(exchange, 405, "Use POST\n");
+                    return;
+                }
+                String model = exchange.getRequestURI().getPath().substring("/predict/".length());
+                if (registry.getVersion(model) == 0) {
+                    errors.increment();
+                    respond(exchange, 404, "No model registered for " + model + "\n");
+                    return;
+                }
+                String query = exchange.getRequestURI().getQuery();
+                boolean proba = query != null && Arrays.asList(query.split("&")).contains("proba=true");
+                String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                List<Mushroom> parsed = contentType != null && contentType.startsWith(COLUMNAR)
+                        ? parseColumnar(exchange.getRequestBody())
+                        : parseCsv(exchange.getRequestBody());
+
+                Scores scores = score(model, parsed, proba);
+                respond(exchange, 200, format(scores));
+                requests.increment();
+                records.add(parsed.size());
+                latency.record(System.nanoTime() - start);
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                respondQuietly(exchange, 503, e.getMessage() + "\n");
+            } catch (IllegalArgumentException | IOException e) {
+                errors.increment();
+                respondQuietly(exchange, 400, e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                errors.increment();
+                respondQuietly(exchange, 500, e + "\n");
+            }
+        }
+    }
+
+    // Queues the records for the batchers and waits for their scores; throws RejectedExecutionException when the queue is full
+    private Scores score(String model, List<Mushroom> parsed, boolean proba) {
+        if (parsed.isEmpty()) {
+            return new Scores(registry.get(model).getLabelValues(), new String[0], proba ? new double[0] : null);
+        }
+        Pending pending = new Pending(model, parsed, proba);
+        if (!queue.offer(pending)) {
+            throw new RejectedExecutionException("Overloaded: " + maxQueuedRequests + " requests already queued");
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scoring", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String format(Scores scores) {
+        int classCount = scores.labels.size();
+        boolean proba = scores.probabilities != null;
+        StringBuilder sb = new StringBuilder(scores.predicted.length * (proba ? 16 + 8 * classCount : 12));
+        for (int i = 0; i < scores.predicted.length; i++) {
+            sb.append(scores.predicted[i]);
+            if (proba) {
+                for (int c = 0; c < classCount; c++) {
+                    sb.append(',').append((float) scores.probabilities[i * classCount + c]);
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private List<Mushroom> parseCsv(InputStream body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return List.of();
+        }
+        String[] header = headerLine.split(",");
+        Schema schema = schemaFor(header);
+        int label = labelIndex(header);
+        List<Mushroom> parsed = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] tokens = line.split(",", -1);
+            if (tokens.length != header.length) {
+                throw new IllegalArgumentException("Expected " + header.length + " values in line " + (parsed.size() + 2));
+            }
+            parsed.add(record(schema, tokens, label));
+        }
+        return parsed;
+    }
+
+    private List<Mushroom> parseColumnar(InputStream body) throws IOException {
+        List<Mushroom> parsed = new ArrayList<>();
+        Schema[] schema = new Schema[1];
+        int[] label = new int[1];
+        ColumnarFile.read(body, "request body", header -> {
+            schema[0] = schemaFor(header);
+            label[0] = labelIndex(header);
+        }, tokens -> parsed.add(record(schema[0], tokens, label[0])));
+        return parsed;
+    }
+
+    // Schema of the header's attribute columns, shared by requests sending the same header while the cache has room
+    private Schema schemaFor(String[] header) {
+        String key = String.join(",", header);
+        Schema schema = schemas.get(key);
+        if (schema != null) {
+            return schema;
+        }
+        List<String> attributes = new ArrayList<>();
+        for (String column : header) {
+            String name = column.trim();
+            if (!name.equalsIgnoreCase(labelColumn)) {
+                attributes.add(MushroomDataSet.ATTRIBUTE_ALIASES.getOrDefault(name, name));
+            }
+        }
+        schema = new Schema(labelColumn, attributes);
+        // Headers are chosen by clients, so the cache is bounded rather than growing with every new one
+        if (schemas.size() < MAX_CACHED_SCHEMAS) {
+            Schema cached = schemas.putIfAbsent(key, schema);
+            return cached != null ? cached : schema;
+        }
+        return schema;
+    }
+
+    // Number of request headers whose schemas are cached
+    int getCachedSchemaCount() {
+        return schemas.size();
+    }
+
+    private int labelIndex(String[] header) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().equalsIgnoreCase(labelColumn)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Mushroom record(Schema schema, String[] tokens, int label) {
+        String[] values = new String[schema.getAttributeCount()];
+        for (int i = 0, v = 0; i < tokens.length; i++) {
+            if (i != label) {
+                values[v++] = tokens[i];
+            }
+        }
+        return new Mushroom(schema, Mushroom.EDIBLE, values);
+    }
+
+    // Takes queued requests, waits briefly for more, and scores them together
+    private void runBatcher() {
+        long maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxBatchDelayMicros);
+        try {
+            while (true) {
+                Pending first = queue.take();
+                if (first == END) {
+                    return;
+                }
+                List<Pending> batch = new ArrayList<>();
+                batch.add(first);
+                int rows = first.records.size();
+                long deadline = System.nanoTime() + maxDelayNanos;
+                boolean end = false;
+                while (rows < maxBatchRows) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == END) {
+                        end = true;
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.records.size();
+                }
+                scoreBatch(batch);
+                batchSizes.record(rows);
+                if (end) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Predicts each model's requests in the batch, scores the probabilities asked for with one batch call, and hands every request its slice
+    private void scoreBatch(List<Pending> batch) {
+        Map<String, List<Pending>> byModel = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            byModel.computeIfAbsent(pending.model, m -> new ArrayList<>()).add(pending);
+        }
+        for (Map.Entry<String, List<Pending>> entry : byModel.entrySet()) {
+            List<Pending> group = entry.getValue();
+            try {
+                ProbabilisticPredictor predictor = registry.get(entry.getKey());
+                List<String> labels = predictor.getLabelValues();
+                List<Mushroom> probaRecords = new ArrayList<>();
+                for (Pending pending : group) {
+                    if (pending.proba) {
+                        probaRecords.addAll(pending.records);
+                    }
+                }
+                double[] probabilities = new double[probaRecords.size() * labels.size()];
+                predictor.predictProba(probaRecords, probabilities);
+                int offset = 0;
+                for (Pending pending : group) {
+                    String[] predicted = new String[pending.records.size()];
+                    for (int i = 0; i < predicted.length; i++) {
+                        predicted[i] = predictor.predict(pending.records.get(i));
+                    }
+                    double[] slice = null;
+                    if (pending.proba) {
+                        int length = pending.records.size() * labels.size();
+                        slice = Arrays.copyOfRange(probabilities, offset, offset + length);
+                        offset += length;
+                    }
+                    pending.result.complete(new Scores(labels, predicted, slice));
+                }
+            } catch (RuntimeException e) {
+                for (Pending pending : group) {
+                    pending.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void handleModels(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder sb = new StringBuilder();
+            for (String key : registry.getKeys()) {
+                sb.append(key).append(",version=").append(registry.getVersion(key))
+                        .append(",loaded=").append(registry.isLoaded(key)).append('\n');
+            }
+            respond(exchange, 200, sb.toString());
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, getMetrics() + "\n");
+        }
+    }
+
+    // Throughput since start, latency percentiles and batching effectiveness
+    public String getMetrics() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        return String.format("Requests=%d, Records=%d, Errors=%d, Rejected=%d, Throughput=%.0f req/s (%.0f rec/s)%n"
+                        + "Latency mean=%.0fus p50=%dus p99=%dus p999=%dus max=%dus%n"
+                        + "Batches=%d, mean batch=%.1f records%n%s",
+                requests.sum(), records.sum(), errors.sum(), rejected.sum(), requests.sum() / seconds, records.sum() / seconds,
+                latency.getMean() / 1e3, micros(latency.getValueAtPercentile(50)), micros(latency.getValueAtPercentile(99)),
+                micros(latency.getValueAtPercentile(99.9)), micros(latency.getMax()),
+                batchSizes.getCount(), batchSizes.getMean(), registry);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void respondQuietly(HttpExchange exchange, int status, String body) {
+        try {
+            respond(exchange, status, body);
+        } catch (IOException | RuntimeException ignored) {
+            // Response already started or the client went away
+        }
+    }
+
+    /**
+     * Command line entry point. Serves every *.dtt tree file in --models under its file name, or
+     * without --models a tree trained on the bundled mushroom.csv as "mushroom":
+     * <pre>
+     *   [--port P] [--models DIR] [--memory-budget BYTES] [--max-batch-rows N]
+     *   [--max-batch-delay-micros US] [--batchers N] [--max-queued-requests N]
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        ModelRegistry registry = new ModelRegistry(Long.parseLong(options.getOrDefault("--memory-budget", "268435456")));
+        if (options.containsKey("--models")) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(options.get("--models")), "*.dtt")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    registry.register(name.substring(0, name.length() - ".dtt".length()), file);
+                }
+            }
+        } else {
+            MushroomDataSet data = new MushroomDataSet();
+            data.loadResource(MushroomDataSet.RESOURCE);
+            DecisionTree tree = new DecisionTree();
+            tree.buildTree(data.getFullData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+            Path file = Files.createTempFile("mushroom", ".dtt");
+            file.toFile().deleteOnExit();
+            registry.register("mushroom", tree, file);
+        }
+
+        ScoringServer server = new ScoringServer(registry);
+        server.setPort(Integer.parseInt(options.getOrDefault("--port", "8080")));
+        server.setMaxBatchRows(Integer.parseInt(options.getOrDefault("--max-batch-rows", "1024")));
+        server.setMaxBatchDelayMicros(Long.parseLong(options.getOrDefault("--max-batch-delay-micros", "200")));
+        server.setMaxQueuedRequests(Integer.parseInt(options.getOrDefault("--max-queued-requests", "4096")));
+        if (options.containsKey("--batchers")) {
+            server.setBatcherThreads(Integer.parseInt(options.get("--batchers")));
+        }
+        server.start();
+        System.out.println("Scoring " + registry.getKeys() + " on port " + server.getPort());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Metrics.Splitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the attributes a trained tree actually splits on.
+ *
+ * Every used attribute gets a dense code per value that appears on one of its branches; code 0
+ * stands for any other value, which the tree treats the same way wherever it is tested. Because
+ * only decision-relevant attributes are kept, a record usually packs into a single long.
+ */
+public class AttributeEncoder {
+
+    public static final int UNSEEN = 0;
+
+    private final List<String> attributes = new ArrayList<>();
+    private final List<Map<String, Integer>> codes = new ArrayList<>();
+    private final List<List<String>> values = new ArrayList<>();
+    private final int[] bits;
+    private final int totalBits;
+
+    public AttributeEncoder(TreeNode root) {
+        Map<String, Map<String, Integer>> byAttribute = new LinkedHashMap<>();
+        if (root != null) {
+            collect(root, byAttribute);
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : byAttribute.entrySet()) {
+            attributes.add(entry.getKey());
+            codes.add(entry.getValue());
+            List<String> dictionary = new ArrayList<>();
+            dictionary.add(null);
+            dictionary.addAll(entry.getValue().keySet());
+            values.add(dictionary);
+        }
+
+        bits = new int[attributes.size()];
+        int sum = 0;
+        for (int a = 0; a < bits.length; a++) {
+            bits[a] = 32 - Integer.numberOfLeadingZeros(getCardinality(a) - 1);
+            sum += bits[a];
+        }
+        totalBits = sum;
+    }
+
+    private static void collect(TreeNode node, Map<String, Map<String, Integer>> byAttribute) {
+        if (node.isLeaf()) {
+            return;
+        }
+        Map<String, Integer> dictionary = byAttribute.computeIfAbsent(node.getSplittingAttribute(), a -> new LinkedHashMap<>());
+        if (node.isBinarySplit()) {
+            for (String value : node.getInValues()) {
+                dictionary.putIfAbsent(value, dictionary.size() + 1);
+            }
+            for (String value : node.getOutValues()) {
+                dictionary.putIfAbsent(value, dictionary.size() + 1);
+            }
+        } else {
+            for (String value : node.getChildValues()) {
+                dictionary.putIfAbsent(value, dictionary.size() + 1);
+            }
+        }
+        for (TreeNode child : node.getChildNodes()) {
+            collect(child, byAttribute);
+        }
+    }
+
+    public int getAttributeCount() {
+        return attributes.size();
+    }
+
+    public String getAttribute(int index) {
+        return attributes.get(index);
+    }
+
+    public int indexOf(String attribute) {
+        return attributes.indexOf(attribute);
+    }
+
+    // Number of codes for the attribute, including the UNSEEN code
+    public int getCardinality(int index) {
+        return codes.get(index).size() + 1;
+    }
+
+    // Value for a code, or null for UNSEEN
+    public String getValue(int index, int code) {
+        return values.get(index).get(code);
+    }
+
+    public int code(int index, String value) {
+        Integer code = codes.get(index).get(value);
+        return code == null ? UNSEEN : code;
+    }
+
+    public int code(int index, Mushroom record) {
+        return code(index, Splitter.getAttributeValue(record, attributes.get(index)));
+    }
+
+    // True when all used attributes fit in a single long key
+    public boolean isPackable() {
+        return totalBits <= 63;
+    }
+
+    public int getTotalBits() {
+        return totalBits;
+    }
+
+    // Packs the codes of all used attributes into one key; only valid when isPackable()
+    public long encode(Mushroom record) {
+        long key = 0;
+        for (int a = 0; a < bits.length; a++) {
+            key = (key << bits[a]) | code(a, record);
+        }
+        return key;
+    }
+}
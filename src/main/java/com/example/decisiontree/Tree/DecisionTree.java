@@ -1,18 +1,55 @@
 package com.example.decisiontree.Tree;
 
 import com.example.decisiontree.DataSet.Mushroom;
-import com.example.decisiontree.Metrics.GainCalculator;
-import com.example.decisiontree.Metrics.EntropyCalculator;
+import com.example.decisiontree.DataSet.Schema;
+import com.example.decisiontree.Metrics.AttributeScreening;
+import com.example.decisiontree.Metrics.ContingencyTable;
+import com.example.decisiontree.Metrics.SplitCriterion;
 import com.example.decisiontree.Metrics.Splitter;
 
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
-public class DecisionTree {
+public class DecisionTree implements ProbabilisticPredictor {
 
     private TreeNode root;
-    private static final int MAX_DEPTH = 7;
+    private TrainingListener trainingListener;
+    // Binary subset splits instead of one child per value, for attributes with at most 64 values
+    private boolean binarySplits;
+    private Map<String, Map<String, Integer>> valueDictionaries = new HashMap<>();
+    // Schema of the training records; numeric attributes always get threshold splits
+    private Schema schema;
+    // Label values by class index, and the training majority label returned when a record cannot be routed at all
+    private String[] labels = {"EDIBLE", "POISONOUS"};
+    private int fallbackClass;
+    private String fallbackLabel = labels[0];
+    // Value-to-code dictionaries of multiway splits, shared by every node splitting on the attribute
+    private Map<String, Map<String, Integer>> childIndexes = new HashMap<>();
+    private StoppingCriteria stoppingCriteria = new StoppingCriteria();
+    // Split statistics of the last build, and what it needs to record them
+    private SplitStatistics splitStatistics;
+    private Map<String, Integer> attributeIndexes = new HashMap<>();
+    private SplitCriterion impurityCriterion = SplitCriterion.INFO_GAIN;
+    private UnseenValueStrategy unseenValueStrategy = UnseenValueStrategy.MOST_FREQUENT_CHILD;
+    // Drop attributes that cannot change the tree before building, and what the last build dropped
+    private boolean screenAttributes;
+    private AttributeScreening attributeScreening;
+    // Score attributes in name order and values in natural order, so the model does not depend on row or column order
+    private boolean reproducible;
+    // Per-thread class distribution reused by CLASS_DISTRIBUTION predictions, so routing an unseen value does not allocate
+    private final ThreadLocal<double[]> distributionScratch = ThreadLocal.withInitial(() -> new double[0]);
+
+    /**
+     * How prediction handles a missing value or a value a node did not see in training.
+     * MOST_FREQUENT_CHILD follows the child that received the most training rows.
+     * CLASS_DISTRIBUTION descends into every child and combines their class distributions
+     * weighted by each child's share of the training rows.
+     */
+    public enum UnseenValueStrategy {
+        MOST_FREQUENT_CHILD,
+        CLASS_DISTRIBUTION
+    }
 
     public static class SplitMetrics {
         private Map<String, Double> gains;
@@ -32,9 +69,107 @@ public class DecisionTree {
         }
     }
 
+    // Registers a listener receiving per-node and per-phase instrumentation, or null to disable it
+    public void setTrainingListener(TrainingListener trainingListener) {
+        this.trainingListener = trainingListener;
+    }
+
+    // Enables two-way value-subset splits instead of one child per attribute value
+    public void setBinarySplits(boolean binarySplits) {
+        this.binarySplits = binarySplits;
+    }
+
+    public boolean isBinarySplits() {
+        return binarySplits;
+    }
+
+    public void setUnseenValueStrategy(UnseenValueStrategy unseenValueStrategy) {
+        this.unseenValueStrategy = unseenValueStrategy;
+    }
+
+    public UnseenValueStrategy getUnseenValueStrategy() {
+        return unseenValueStrategy;
+    }
+
+    // The lookup table, rule set and compiled class only follow the most frequent child, so they reject other strategies
+    void requireMostFrequentChildRouting(String form) {
+        if (unseenValueStrategy != UnseenValueStrategy.MOST_FREQUENT_CHILD) {
+            throw new IllegalArgumentException(form + " routes unseen values to the most frequent child only; the tree uses "
+                    + unseenValueStrategy);
+        }
+    }
+
+    // Sets the depth, size, gain and leaf-count limits used by subsequent builds
+    public void setStoppingCriteria(StoppingCriteria stoppingCriteria) {
+        this.stoppingCriteria = stoppingCriteria;
+    }
+
+    public StoppingCriteria getStoppingCriteria() {
+        return stoppingCriteria;
+    }
+
+    // Enables attribute pre-screening, so that attributes the tree would never split on are not scored at each node
+    public void setScreenAttributes(boolean screenAttributes) {
+        this.screenAttributes = screenAttributes;
+    }
+
+    public boolean isScreenAttributes() {
+        return screenAttributes;
+    }
+
+    // Attributes kept and dropped by the last build's pre-screening, or null if it did not screen
+    public AttributeScreening getAttributeScreening() {
+        return attributeScreening;
+    }
+
+    /**
+     * Enables reproducible builds. Attributes are scored in name order and each attribute's values
+     * in natural order, so equal scores are broken and floating-point sums are taken the same way
+     * whatever order the rows and columns of the training data come in, e.g. when they were loaded
+     * in parallel chunks. The same records then give a bit-identical tree; see {@link TreeHash}.
+     */
+    public void setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+    }
+
+    public boolean isReproducible() {
+        return reproducible;
+    }
+
+    // Number of classes of the training data; predictProba writes this many probabilities per record
+    public int getClassCount() {
+        return labels.length;
+    }
+
+    // Label values in class index order, the order of the predictProba output
+    @Override
+    public List<String> getLabelValues() {
+        return List.of(labels);
+    }
+
+    // Label returned when a record cannot be routed at all, e.g. by a rule set matching no rule
+    public String getFallbackLabel() {
+        return fallbackLabel;
+    }
+
+    // Label value of a node: its leaf label, or its majority label if it is internal
+    public String getLabel(TreeNode node) {
+        return labels[node.getClassIndex()];
+    }
+
+    // Per-attribute importances and per-depth split statistics gathered by the last build, or null before any
+    public SplitStatistics getSplitStatistics() {
+        return splitStatistics;
+    }
+
     // Builds the decision tree using the provided data and attributes
     public void buildTree(List<Mushroom> data, List<String> attributes, boolean useGainRatio) {
-        this.root = buildRecursive(data, attributes, useGainRatio, 0, null);
+        buildTreeWithMetrics(data, attributes, useGainRatio, null);
+    }
+
+    // Builds the decision tree using the given split criterion
+    public void buildTree(List<Mushroom> data, List<String> attributes, SplitCriterion criterion) {
+        buildTreeWithMetrics(data, attributes, criterion, null);
     }
 
     // Builds the decision tree while capturing gain and entropy metrics
@@ -44,42 +179,313 @@ public class DecisionTree {
             boolean useGainRatio,
             BiConsumer<Integer, SplitMetrics> metricsCallback
     ) {
-        this.root = buildRecursive(data, attributes, useGainRatio, 0, metricsCallback);
+        buildTreeWithMetrics(data, attributes, useGainRatio ? SplitCriterion.GAIN_RATIO : SplitCriterion.INFO_GAIN, metricsCallback);
+    }
+
+    // Builds the decision tree with the given split criterion while capturing score and entropy metrics
+    public void buildTreeWithMetrics(
+            List<Mushroom> data,
+            List<String> attributes,
+            SplitCriterion criterion,
+            BiConsumer<Integer, SplitMetrics> metricsCallback
+    ) {
+        TrainingListener listener = trainingListener;
+        long start = System.nanoTime();
+        if (listener != null) {
+            listener.onTrainingStarted(data.size(), attributes.size());
+        }
+        this.schema = data.isEmpty() ? null : data.get(0).getSchema();
+        this.labels = new String[ContingencyTable.classCount(data)];
+        for (int c = 0; c < labels.length; c++) {
+            labels[c] = schema == null ? (c == 0 ? "EDIBLE" : "POISONOUS") : schema.labelOf(c);
+        }
+        this.valueDictionaries = buildValueDictionaries(data, attributes);
+        this.childIndexes = new HashMap<>();
+        this.splitStatistics = new SplitStatistics(new ArrayList<>(attributes), data.size());
+        this.attributeIndexes = new HashMap<>();
+        for (String attribute : attributes) {
+            attributeIndexes.putIfAbsent(attribute, attributeIndexes.size());
+        }
+        this.impurityCriterion = criterion == SplitCriterion.GINI ? SplitCriterion.GINI : SplitCriterion.INFO_GAIN;
+        List<String> candidates = attributes;
+        if (reproducible) {
+            candidates = new ArrayList<>(candidates);
+            Collections.sort(candidates);
+        }
+        // Screened in scoring order, so each attribute kept in place of another also wins their ties
+        this.attributeScreening = screenAttributes ? screen(data, candidates, criterion) : null;
+        if (attributeScreening != null) {
+            candidates = attributeScreening.getKept();
+        }
+        long[] classCounts = countClasses(data);
+        this.fallbackClass = argMax(classCounts);
+        this.fallbackLabel = labels[fallbackClass];
+        this.root = stoppingCriteria.hasLeafBudget()
+                ? buildBestFirst(data, classCounts, candidates, criterion, metricsCallback)
+                : buildRecursive(data, classCounts, candidates, criterion, 0, metricsCallback);
+        if (listener != null) {
+            listener.onTrainingFinished(System.nanoTime() - start);
+        }
     }
 
-    // Recursively constructs the decision tree
+    // Recursively constructs the decision tree; classCounts holds the node's rows per class, carried over from the parent's split
     private TreeNode buildRecursive(
             List<Mushroom> data,
+            long[] classCounts,
             List<String> attributes,
-            boolean useGainRatio,
+            SplitCriterion criterion,
             int currentDepth,
             BiConsumer<Integer, SplitMetrics> metricsCallback
     ) {
-        if (allEdible(data)) {
-            return new TreeNode("EDIBLE");
+        TrainingListener listener = trainingListener;
+        PhaseClock clock = listener == null ? null : new PhaseClock();
+
+        int leafClass = leafClass(classCounts, attributes, currentDepth, clock);
+        if (leafClass >= 0) {
+            return leaf(leafClass, currentDepth, classCounts);
         }
-        if (allPoisonous(data)) {
-            return new TreeNode("POISONOUS");
+
+        SplitCandidate best = findBestSplit(data, attributes, criterion, currentDepth, metricsCallback, clock);
+        if (best == null) {
+            return leaf(argMax(classCounts), currentDepth, classCounts);
         }
-        if (attributes.isEmpty() || currentDepth >= MAX_DEPTH) {
-            return new TreeNode(majorityLabel(data));
+
+        if (listener != null) {
+            listener.onNode(currentDepth, data.size(), false);
+            clock.start();
         }
 
-        // Calculate gains for all attributes
-        Map<String, Double> attributeGains = new HashMap<>();
-        for (String attribute : attributes) {
-            double gain = useGainRatio
-                    ? GainCalculator.calculateGainRatio(data, attribute)
-                    : GainCalculator.calculateInfoGain(data, attribute);
-            attributeGains.put(attribute, gain);
+        // Partition data based on the best split and prepare the attributes left for the children
+        Map<String, List<Mushroom>> partitions = partition(data, best);
+        Map<String, long[]> childCounts = childClassCounts(best);
+        recordSplit(best, childCounts, currentDepth, data.size());
+        List<String> remainingAttributes = remainingAttributes(attributes, best);
+
+        if (listener != null) {
+            listener.onPhase(TrainingListener.Phase.PARTITIONING, currentDepth, clock.elapsedNanos(), clock.allocatedSinceStart(), data.size());
+            clock.start();
+        }
+
+        // Recursively build child nodes
+        Map<String, TreeNode> children = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Mushroom>> entry : partitions.entrySet()) {
+            String attributeValue = entry.getKey();
+            List<Mushroom> subset = entry.getValue();
+
+            if (subset.isEmpty()) {
+                children.put(attributeValue, leaf(argMax(classCounts), currentDepth + 1, new long[labels.length]));
+            } else {
+                TreeNode child = buildRecursive(subset, childCounts.get(attributeValue), remainingAttributes, criterion, currentDepth + 1, metricsCallback);
+                children.put(attributeValue, child);
+            }
+        }
+
+        if (listener != null) {
+            listener.onPhase(TrainingListener.Phase.RECURSION, currentDepth, clock.elapsedNanos(), clock.allocatedSinceStart(), data.size());
+        }
+
+        TreeNode node = new TreeNode(argMax(classCounts));
+        node.setClassCounts(classCounts);
+        applySplit(node, best, children);
+        return node;
+    }
+
+    /**
+     * Grows the tree best-first under the leaf budget. Every open leaf with a valid split waits in a
+     * priority queue ordered by split score times row count; the best one is expanded as long as its
+     * children still fit in the budget.
+     */
+    private TreeNode buildBestFirst(
+            List<Mushroom> data,
+            long[] classCounts,
+            List<String> attributes,
+            SplitCriterion criterion,
+            BiConsumer<Integer, SplitMetrics> metricsCallback
+    ) {
+        TrainingListener listener = trainingListener;
+        PhaseClock clock = listener == null ? null : new PhaseClock();
+        // Equal priorities are expanded in the order their nodes were opened
+        PriorityQueue<OpenNode> queue = new PriorityQueue<>(
+                Comparator.comparingDouble((OpenNode open) -> open.split.score * open.data.size()).reversed()
+                        .thenComparingInt(open -> open.sequence));
+        List<OpenNode> finalLeaves = new ArrayList<>();
+
+        int opened = 0;
+        OpenNode rootNode = new OpenNode(new TreeNode(argMax(classCounts)), data, classCounts, attributes, 0, opened++);
+        open(rootNode, criterion, metricsCallback, clock, queue, finalLeaves);
+        int leaves = 1;
+
+        while (!queue.isEmpty()) {
+            OpenNode next = queue.poll();
+            Map<String, long[]> childCounts = childClassCounts(next.split);
+            if (leaves + childCounts.size() - 1 > stoppingCriteria.getMaxLeaves()) {
+                finalLeaves.add(next);
+                continue;
+            }
+            recordSplit(next.split, childCounts, next.depth, next.data.size());
+
+            if (listener != null) {
+                listener.onNode(next.depth, next.data.size(), false);
+                clock.start();
+            }
+            Map<String, List<Mushroom>> partitions = partition(next.data, next.split);
+            List<String> remainingAttributes = remainingAttributes(next.attributes, next.split);
+            if (listener != null) {
+                listener.onPhase(TrainingListener.Phase.PARTITIONING, next.depth, clock.elapsedNanos(), clock.allocatedSinceStart(), next.data.size());
+            }
+
+            Map<String, TreeNode> children = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Mushroom>> entry : partitions.entrySet()) {
+                long[] counts = childCounts.get(entry.getKey());
+                TreeNode child = new TreeNode(argMax(entry.getValue().isEmpty() ? next.classCounts : counts));
+                children.put(entry.getKey(), child);
+                open(new OpenNode(child, entry.getValue(), counts, remainingAttributes, next.depth + 1, opened++), criterion, metricsCallback, clock, queue, finalLeaves);
+            }
+            applySplit(next.node, next.split, children);
+            leaves += children.size() - 1;
+        }
+
+        for (OpenNode leaf : finalLeaves) {
+            splitStatistics.recordLeaf(leaf.depth);
+            if (listener != null) {
+                listener.onNode(leaf.depth, leaf.data.size(), true);
+            }
+        }
+        return rootNode.node;
+    }
+
+    // Queues an open leaf for expansion if it can be split, otherwise records it as final
+    private void open(OpenNode open, SplitCriterion criterion, BiConsumer<Integer, SplitMetrics> metricsCallback,
+                      PhaseClock clock, PriorityQueue<OpenNode> queue, List<OpenNode> finalLeaves) {
+        open.node.setClassCounts(open.classCounts);
+        if (open.data.isEmpty() || leafClass(open.classCounts, open.attributes, open.depth, clock) >= 0) {
+            finalLeaves.add(open);
+            return;
+        }
+        open.split = findBestSplit(open.data, open.attributes, criterion, open.depth, metricsCallback, clock);
+        if (open.split == null) {
+            finalLeaves.add(open);
+        } else {
+            queue.add(open);
+        }
+    }
+
+    // Returns the leaf's class index if the node must not be split, or -1 if splitting may continue; decided from the class counts alone
+    private int leafClass(long[] classCounts, List<String> attributes, int currentDepth, PhaseClock clock) {
+        if (clock != null) {
+            clock.start();
+        }
+        long total = 0;
+        int presentClasses = 0;
+        for (long count : classCounts) {
+            total += count;
+            if (count > 0) {
+                presentClasses++;
+            }
+        }
+        int leafClass = -1;
+        if (presentClasses <= 1) {
+            // Pure node, or no rows at all
+            leafClass = argMax(classCounts);
+        } else if (attributes.isEmpty()
+                || currentDepth >= stoppingCriteria.getMaxDepth()
+                || total < stoppingCriteria.getMinSamplesSplit()) {
+            leafClass = argMax(classCounts);
+        }
+        if (clock != null) {
+            trainingListener.onPhase(TrainingListener.Phase.NODE_STATS, currentDepth, clock.elapsedNanos(), clock.allocatedSinceStart(), 0);
+        }
+        return leafClass;
+    }
+
+    // Class counts of each child of the split, read off the split's contingency table without scanning the rows
+    private Map<String, long[]> childClassCounts(SplitCandidate split) {
+        ContingencyTable table = split.table;
+        Map<String, long[]> counts = new LinkedHashMap<>();
+        if (split.grouping == null) {
+            for (int v = 0; v < table.getValueCount(); v++) {
+                counts.put(table.getValue(v), table.getCounts(v).clone());
+            }
+            return counts;
+        }
+        Set<String> inValues = new HashSet<>(split.grouping.getInValues());
+        long[] in = new long[labels.length];
+        long[] out = new long[labels.length];
+        for (int v = 0; v < table.getValueCount(); v++) {
+            long[] target = inValues.contains(table.getValue(v)) ? in : out;
+            for (int c = 0; c < labels.length; c++) {
+                target[c] += table.getCount(v, c);
+            }
+        }
+        counts.put(IN, in);
+        counts.put(OUT, out);
+        return counts;
+    }
+
+    // Adds the split's impurity decrease, measured on the children it creates, to the split statistics
+    private void recordSplit(SplitCandidate split, Map<String, long[]> childCounts, int depth, int rows) {
+        ContingencyTable children = split.grouping == null ? split.table
+                : new ContingencyTable(new ArrayList<>(childCounts.keySet()), childCounts.values().toArray(new long[0][]), labels.length);
+        splitStatistics.recordSplit(attributeIndexes.get(split.attribute), depth, rows, split.score, impurityCriterion.score(children));
+    }
+
+    // A minimum leaf size can rule out a multiway split that a coarser attribute passes, so dependent attributes then stay
+    private AttributeScreening screen(List<Mushroom> data, List<String> attributes, SplitCriterion criterion) {
+        if (binarySplits || stoppingCriteria.getMinSamplesLeaf() <= 1) {
+            return AttributeScreening.screen(data, attributes, criterion);
+        }
+        return AttributeScreening.screen(data, attributes);
+    }
+
+    // Scores every attribute and returns the best split satisfying the stopping criteria, or null
+    private SplitCandidate findBestSplit(
+            List<Mushroom> data,
+            List<String> attributes,
+            SplitCriterion criterion,
+            int currentDepth,
+            BiConsumer<Integer, SplitMetrics> metricsCallback,
+            PhaseClock clock
+    ) {
+        if (clock != null) {
+            clock.start();
         }
+        int minLeaf = stoppingCriteria.getMinSamplesLeaf();
 
-        // Calculate entropies for all attributes
-        Map<String, Double> attributeEntropies = new HashMap<>();
+        // Score all attributes and compute their average value entropy from one contingency table each
+        Map<String, Double> attributeGains = new LinkedHashMap<>();
+        Map<String, Double> attributeEntropies = new LinkedHashMap<>();
+        Map<String, SplitCandidate> candidates = new LinkedHashMap<>();
         for (String attribute : attributes) {
-            Map<String, Double> entropies = EntropyCalculator.calculateAttributeEntropies(data, attribute);
-            double averageEntropy = entropies.values().stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            attributeEntropies.put(attribute, averageEntropy);
+            ContingencyTable table = ContingencyTable.of(data, attribute, labels.length);
+            if (reproducible) {
+                table = table.sortedByValue();
+            }
+            SplitCandidate candidate;
+            if (isNumeric(attribute)) {
+                ContingencyTable.BinaryGrouping grouping = table.bestThreshold(criterion, minLeaf,
+                        schema.getBinLabels(schema.indexOf(attribute)));
+                if (grouping == null) {
+                    // Fewer than two bins left at this node, or no threshold leaves minSamplesLeaf rows on both sides
+                    continue;
+                }
+                candidate = new SplitCandidate(attribute, grouping.getScore(), table, grouping);
+            } else if (valueDictionaries.containsKey(attribute)) {
+                ContingencyTable.BinaryGrouping grouping = table.bestBinaryGrouping(criterion, minLeaf);
+                if (grouping == null) {
+                    // Only one value left at this node, or no grouping leaves minSamplesLeaf rows on both sides
+                    continue;
+                }
+                candidate = new SplitCandidate(attribute, grouping.getScore(), table, grouping);
+            } else {
+                candidate = new SplitCandidate(attribute, criterion.score(table), table, null);
+            }
+            attributeGains.put(attribute, candidate.score);
+            if (candidate.grouping != null || smallestValueCount(table) >= minLeaf) {
+                candidates.put(attribute, candidate);
+            }
+            if (metricsCallback != null) {
+                attributeEntropies.put(attribute, averageValueEntropy(table));
+            }
         }
 
         // Capture metrics if callback is provided
@@ -90,44 +496,252 @@ public class DecisionTree {
         }
 
         // Select the best attribute to split on
-        String bestAttribute = selectBestAttribute(attributeGains);
+        Map<String, Double> eligibleGains = new LinkedHashMap<>();
+        for (SplitCandidate candidate : candidates.values()) {
+            if (candidate.score >= stoppingCriteria.getMinGain()) {
+                eligibleGains.put(candidate.attribute, candidate.score);
+            }
+        }
+        String bestAttribute = selectBestAttribute(eligibleGains);
 
-        if (bestAttribute == null) {
-            return new TreeNode(majorityLabel(data));
+        if (clock != null) {
+            trainingListener.onPhase(TrainingListener.Phase.SPLIT_SCORING, currentDepth, clock.elapsedNanos(), clock.allocatedSinceStart(),
+                    (long) data.size() * attributes.size());
         }
+        return bestAttribute == null ? null : candidates.get(bestAttribute);
+    }
 
-        TreeNode node = new TreeNode(null);
-        node.setSplittingAttribute(bestAttribute);
+    private long smallestValueCount(ContingencyTable table) {
+        long smallest = Long.MAX_VALUE;
+        for (int v = 0; v < table.getValueCount(); v++) {
+            smallest = Math.min(smallest, table.getValueTotal(v));
+        }
+        return smallest;
+    }
 
-        // Partition data based on the best attribute
-        Map<String, List<Mushroom>> partitions = Splitter.partitionByAttribute(data, bestAttribute);
+    // Groups the rows by the split: one entry per value in the order of the split's table, or the "in" and "out" groups of a binary split
+    private Map<String, List<Mushroom>> partition(List<Mushroom> data, SplitCandidate split) {
+        if (split.grouping == null) {
+            Map<String, List<Mushroom>> partitions = new LinkedHashMap<>();
+            for (int v = 0; v < split.table.getValueCount(); v++) {
+                partitions.put(split.table.getValue(v), new ArrayList<>((int) split.table.getValueTotal(v)));
+            }
+            for (Mushroom record : data) {
+                partitions.get(getAttributeValue(record, split.attribute)).add(record);
+            }
+            return partitions;
+        }
+        Map<String, Integer> dictionary = valueDictionaries.get(split.attribute);
+        long mask = inMask(split);
+        List<Mushroom> inData = new ArrayList<>();
+        List<Mushroom> outData = new ArrayList<>();
+        for (Mushroom record : data) {
+            Integer bit = dictionary.get(getAttributeValue(record, split.attribute));
+            if (((mask >>> bit) & 1L) != 0) {
+                inData.add(record);
+            } else {
+                outData.add(record);
+            }
+        }
+        Map<String, List<Mushroom>> partitions = new LinkedHashMap<>();
+        partitions.put(IN, inData);
+        partitions.put(OUT, outData);
+        return partitions;
+    }
 
-        // Prepare remaining attributes for child nodes
-        List<String> remainingAttributes = attributes.stream()
-                .filter(attr -> !attr.equals(bestAttribute))
+    // A multiway split uses up its attribute; a binary split leaves it available for further splits
+    private List<String> remainingAttributes(List<String> attributes, SplitCandidate split) {
+        if (split.grouping != null) {
+            return attributes;
+        }
+        return attributes.stream()
+                .filter(attr -> !attr.equals(split.attribute))
                 .collect(Collectors.toList());
+    }
 
-        // Recursively build child nodes
-        for (Map.Entry<String, List<Mushroom>> entry : partitions.entrySet()) {
-            String attributeValue = entry.getKey();
-            List<Mushroom> subset = entry.getValue();
+    // Turns a leaf into an internal node for the split with the given children
+    private void applySplit(TreeNode node, SplitCandidate split, Map<String, TreeNode> children) {
+        if (split.grouping != null) {
+            long inMask = inMask(split);
+            node.setBinarySplit(split.attribute, valueDictionaries.get(split.attribute), inMask, outMask(split, inMask),
+                    children.get(IN), children.get(OUT));
+            if (isNumeric(split.attribute)) {
+                node.setThreshold(threshold(split));
+            }
+        } else {
+            Map<String, Integer> index = childIndexes.computeIfAbsent(split.attribute, a -> new LinkedHashMap<>());
+            int length = 0;
+            for (String value : children.keySet()) {
+                index.putIfAbsent(value, index.size());
+                length = Math.max(length, index.get(value) + 1);
+            }
+            TreeNode[] byCode = new TreeNode[length];
+            for (Map.Entry<String, TreeNode> child : children.entrySet()) {
+                byCode[index.get(child.getKey())] = child.getValue();
+            }
+            node.setMultiwaySplit(split.attribute, index, byCode);
+        }
+    }
 
-            if (subset.isEmpty()) {
-                node.addChild(attributeValue, new TreeNode(majorityLabel(data)));
-            } else {
-                TreeNode child = buildRecursive(subset, remainingAttributes, useGainRatio, currentDepth + 1, metricsCallback);
-                node.addChild(attributeValue, child);
+    // Codes of the values sent to the in child; a threshold also takes the bins below it that did not reach the node
+    private long inMask(SplitCandidate split) {
+        Map<String, Integer> dictionary = valueDictionaries.get(split.attribute);
+        long mask = 0L;
+        for (String value : split.grouping.getInValues()) {
+            mask |= 1L << dictionary.get(value);
+        }
+        if (isNumeric(split.attribute)) {
+            List<String> bins = schema.getBinLabels(schema.indexOf(split.attribute));
+            int highest = highestInBin(split);
+            for (int b = 0; b <= highest; b++) {
+                Integer code = dictionary.get(bins.get(b));
+                if (code != null) {
+                    mask |= 1L << code;
+                }
+            }
+        }
+        return mask;
+    }
+
+    // Codes of the values sent to the out child: the node's other values, or every other value for a threshold.
+    // Values in neither mask did not reach the node and go through the unseen-value strategy.
+    private long outMask(SplitCandidate split, long inMask) {
+        Map<String, Integer> dictionary = valueDictionaries.get(split.attribute);
+        long mask = 0L;
+        if (isNumeric(split.attribute)) {
+            for (int code : dictionary.values()) {
+                mask |= 1L << code;
+            }
+        } else {
+            for (int v = 0; v < split.table.getValueCount(); v++) {
+                mask |= 1L << dictionary.get(split.table.getValue(v));
+            }
+        }
+        return mask & ~inMask;
+    }
+
+    private static final String IN = "IN";
+    private static final String OUT = "OUT";
+
+    // Best split found for a node
+    private static class SplitCandidate {
+        final String attribute;
+        final double score;
+        final ContingencyTable table;
+        final ContingencyTable.BinaryGrouping grouping;
+
+        SplitCandidate(String attribute, double score, ContingencyTable table, ContingencyTable.BinaryGrouping grouping) {
+            this.attribute = attribute;
+            this.score = score;
+            this.table = table;
+            this.grouping = grouping;
+        }
+    }
+
+    // A leaf waiting for best-first expansion
+    private static class OpenNode {
+        final TreeNode node;
+        final List<Mushroom> data;
+        final long[] classCounts;
+        final List<String> attributes;
+        final int depth;
+        // Order in which the node was opened
+        final int sequence;
+        SplitCandidate split;
+
+        OpenNode(TreeNode node, List<Mushroom> data, long[] classCounts, List<String> attributes, int depth, int sequence) {
+            this.node = node;
+            this.data = data;
+            this.classCounts = classCounts;
+            this.attributes = attributes;
+            this.depth = depth;
+            this.sequence = sequence;
+        }
+    }
+
+    // Assigns every training value of each attribute a bit index, for attributes small enough for a 64-bit mask
+    private Map<String, Map<String, Integer>> buildValueDictionaries(List<Mushroom> data, List<String> attributes) {
+        Map<String, Map<String, Integer>> dictionaries = new HashMap<>();
+        for (String attribute : attributes) {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            if (isNumeric(attribute)) {
+                // Every bin in order, so bins a node never saw still fall on the right side of its threshold
+                for (String bin : schema.getBinLabels(schema.indexOf(attribute))) {
+                    dictionary.put(bin, dictionary.size());
+                }
+                dictionary.put(Mushroom.MISSING, dictionary.size());
+            } else if (binarySplits) {
+                Collection<String> values = reproducible ? new TreeSet<>() : new LinkedHashSet<>();
+                for (Mushroom record : data) {
+                    values.add(getAttributeValue(record, attribute));
+                }
+                for (String value : values) {
+                    dictionary.put(value, dictionary.size());
+                }
+            }
+            if (!dictionary.isEmpty() && dictionary.size() <= Long.SIZE) {
+                dictionaries.put(attribute, dictionary);
             }
         }
+        return dictionaries;
+    }
 
+    private boolean isNumeric(String attribute) {
+        return schema != null && schema.isNumeric(attribute);
+    }
+
+    // Upper edge of the highest bin sent to the first child of a threshold split
+    private double threshold(SplitCandidate split) {
+        int highest = highestInBin(split);
+        double[] edges = schema.getBinEdges(schema.indexOf(split.attribute));
+        return highest >= 0 && highest < edges.length ? edges[highest] : Double.NaN;
+    }
+
+    // Position of the highest bin sent to the first child of a threshold split, or -1 if none is
+    private int highestInBin(SplitCandidate split) {
+        List<String> bins = schema.getBinLabels(schema.indexOf(split.attribute));
+        int highest = -1;
+        for (String value : split.grouping.getInValues()) {
+            highest = Math.max(highest, bins.indexOf(value));
+        }
+        return highest;
+    }
+
+    // Creates a leaf node and reports it to the training listener
+    private TreeNode leaf(int classIndex, int depth, long[] classCounts) {
+        splitStatistics.recordLeaf(depth);
+        if (trainingListener != null) {
+            long rows = 0;
+            for (long count : classCounts) {
+                rows += count;
+            }
+            trainingListener.onNode(depth, (int) rows, true);
+        }
+        TreeNode node = new TreeNode(classIndex);
+        node.setClassCounts(classCounts);
         return node;
     }
 
-    // Selects the attribute with the highest gain
+    // Average of the class entropies of the attribute's values
+    private double averageValueEntropy(ContingencyTable table) {
+        double sum = 0.0;
+        for (int v = 0; v < table.getValueCount(); v++) {
+            sum += table.valueEntropy(v);
+        }
+        return table.getValueCount() == 0 ? 0.0 : sum / table.getValueCount();
+    }
+
+    // Selects the attribute with the highest gain; ties go to the attribute scored first
     private String selectBestAttribute(Map<String, Double> attributeGains) {
-        return attributeGains.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey).orElse(null);
+        String best = null;
+        double bestGain = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Double> entry : attributeGains.entrySet()) {
+            if (best == null || entry.getValue() > bestGain) {
+                best = entry.getKey();
+                bestGain = entry.getValue();
+            }
+        }
+        return best;
     }
 
     // Partitions the data based on the specified attribute
@@ -140,41 +754,173 @@ public class DecisionTree {
         return Splitter.getAttributeValue(record, attribute);
     }
 
-    // Checks if all records are edible
-    private boolean allEdible(List<Mushroom> data) {
-        return data.stream().allMatch(Mushroom::isEdible);
+    // Counts the records of each class in a single pass
+    private long[] countClasses(List<Mushroom> data) {
+        return ContingencyTable.classCounts(data, labels.length);
     }
 
-    // Checks if all records are poisonous
-    private boolean allPoisonous(List<Mushroom> data) {
-        return data.stream().noneMatch(Mushroom::isEdible);
+    // Majority class index from class counts; ties go to the lowest class index
+    private static int argMax(long[] values) {
+        int best = 0;
+        for (int c = 1; c < values.length; c++) {
+            if (values[c] > values[best]) {
+                best = c;
+            }
+        }
+        return best;
     }
 
-    // Determines the majority label in the data
-    private String majorityLabel(List<Mushroom> data) {
-        long edibleCount = data.stream().filter(Mushroom::isEdible).count();
-        long poisonousCount = data.size() - edibleCount;
-        return (edibleCount >= poisonousCount) ? "EDIBLE" : "POISONOUS";
+    private static int argMax(double[] values) {
+        int best = 0;
+        for (int c = 1; c < values.length; c++) {
+            if (values[c] > values[best]) {
+                best = c;
+            }
+        }
+        return best;
     }
 
-    // Predicts the label ("EDIBLE" or "POISONOUS") for a given Mushroom record
+    // Predicts the label (e.g. "EDIBLE" or "POISONOUS") for a given Mushroom record
+    @Override
     public String predict(Mushroom record) {
+        return predict(record, null);
+    }
+
+    // Predicts the label and reports the traversal depth and whether an unseen value was routed to the listener, if any
+    public String predict(Mushroom record, PredictionListener listener) {
         TreeNode currentNode = root;
+        int depth = 0;
+        boolean fallback = false;
         while (!currentNode.isLeaf()) {
             String attr = currentNode.getSplittingAttribute();
             String value = getAttributeValue(record, attr);
 
-            if (!currentNode.getChildren().containsKey(value)) {
-                return majorityLabelFallback();
+            TreeNode next = currentNode.childFor(value);
+            if (next == null) {
+                fallback = true;
+                if (unseenValueStrategy == UnseenValueStrategy.CLASS_DISTRIBUTION) {
+                    if (listener != null) {
+                        listener.onPrediction(depth, true);
+                    }
+                    double[] distribution = distributionScratch.get();
+                    if (distribution.length != labels.length) {
+                        distribution = new double[labels.length];
+                        distributionScratch.set(distribution);
+                    }
+                    Arrays.fill(distribution, 0.0);
+                    accumulateProba(currentNode, record, 1.0, distribution, 0);
+                    return labels[argMax(distribution)];
+                }
+                next = currentNode.getMostFrequentChild();
+                if (next == null) {
+                    break;
+                }
             }
-            currentNode = currentNode.getChildren().get(value);
+            currentNode = next;
+            depth++;
         }
-        return currentNode.getLabel();
+        if (listener != null) {
+            listener.onPrediction(depth, fallback);
+        }
+        return currentNode.isLeaf() ? labels[currentNode.getClassIndex()] : fallbackLabel;
     }
 
-    // Fallback method to return a default label if traversal fails
-    private String majorityLabelFallback() {
-        return "EDIBLE";
+    /**
+     * Writes the class probabilities for the record into out, indexed by class index as listed by
+     * getLabelValues(). Leaf probabilities are Laplace-smoothed training class frequencies;
+     * unseen values are handled by the tree's UnseenValueStrategy.
+     */
+    @Override
+    public void predictProba(Mushroom record, double[] out) {
+        Arrays.fill(out, 0, labels.length, 0.0);
+        accumulateProba(root, record, 1.0, out, 0);
+    }
+
+    // Batch variant: the probability of class c for record i goes to out[i * getClassCount() + c]
+    @Override
+    public void predictProba(List<Mushroom> records, double[] out) {
+        checkCapacity(records, out.length);
+        Arrays.fill(out, 0, records.size() * labels.length, 0.0);
+        for (int i = 0; i < records.size(); i++) {
+            accumulateProba(root, records.get(i), 1.0, out, i * labels.length);
+        }
+    }
+
+    // Batch variant writing single-precision probabilities, laid out like the double[] variant
+    public void predictProba(List<Mushroom> records, float[] out) {
+        checkCapacity(records, out.length);
+        double[] probabilities = new double[labels.length];
+        for (int i = 0; i < records.size(); i++) {
+            predictProba(records.get(i), probabilities);
+            for (int c = 0; c < labels.length; c++) {
+                out[i * labels.length + c] = (float) probabilities[c];
+            }
+        }
+    }
+
+    private void checkCapacity(List<Mushroom> records, int length) {
+        if (root == null) {
+            throw new IllegalStateException("The tree has not been built");
+        }
+        if (length < (long) records.size() * labels.length) {
+            throw new IllegalArgumentException("Output array needs " + labels.length + " slots per record");
+        }
+    }
+
+    // Adds weight times the class probabilities below the node to out[offset..], following the unseen value strategy
+    private void accumulateProba(TreeNode node, Mushroom record, double weight, double[] out, int offset) {
+        while (!node.isLeaf()) {
+            TreeNode next = node.childFor(getAttributeValue(record, node.getSplittingAttribute()));
+            if (next == null) {
+                if (unseenValueStrategy == UnseenValueStrategy.MOST_FREQUENT_CHILD) {
+                    next = node.getMostFrequentChild();
+                } else {
+                    // Every child, weighted by its share of the training rows, or equally when no counts are known
+                    TreeNode[] children = node.getChildren();
+                    long total = node.getChildRowTotal();
+                    int present = 0;
+                    for (TreeNode child : children) {
+                        if (child != null) {
+                            present++;
+                        }
+                    }
+                    for (TreeNode child : children) {
+                        if (child != null) {
+                            double share = total == 0 ? 1.0 / present : (double) child.getRowCount() / total;
+                            accumulateProba(child, record, weight * share, out, offset);
+                        }
+                    }
+                    if (present == 0) {
+                        accumulateLeafProba(fallbackClass, null, weight, out, offset);
+                    }
+                    return;
+                }
+                if (next == null) {
+                    accumulateLeafProba(fallbackClass, null, weight, out, offset);
+                    return;
+                }
+            }
+            node = next;
+        }
+        accumulateLeafProba(node.getClassIndex(), node.getClassCounts(), weight, out, offset);
+    }
+
+    // Laplace-smoothed class shares of a leaf's training rows, or its class as a certainty when it has no counts
+    private void accumulateLeafProba(int classIndex, long[] classCounts, double weight, double[] out, int offset) {
+        if (classCounts != null) {
+            long total = 0;
+            for (long count : classCounts) {
+                total += count;
+            }
+            if (total > 0) {
+                double denominator = total + labels.length;
+                for (int c = 0; c < labels.length; c++) {
+                    out[offset + c] += weight * (classCounts[c] + 1.0) / denominator;
+                }
+                return;
+            }
+        }
+        out[offset + classIndex] += weight;
     }
 
     // Generates a string representation of the decision tree
@@ -188,7 +934,24 @@ public class DecisionTree {
         StringBuilder sb = new StringBuilder();
 
         if (node.isLeaf()) {
-            sb.append(prefix).append(isTail ? "└── " : "├── ").append("Leaf: ").append(node.getLabel()).append("\n");
+            sb.append(prefix).append(isTail ? "└── " : "├── ").append("Leaf: ").append(labels[node.getClassIndex()]).append("\n");
+        } else if (node.isThresholdSplit()) {
+            sb.append(prefix).append(isTail ? "└── " : "├── ").append("[Split on: ").append(node.getSplittingAttribute()).append("]\n");
+            String newPrefix = prefix + (isTail ? "    " : "│   ");
+            boolean missingIn = node.getInValues().contains(Mushroom.MISSING);
+            sb.append(newPrefix).append("├── ").append("Value <= ").append(node.getThreshold())
+                    .append(missingIn ? " or missing" : "").append(":\n");
+            sb.append(treeToString(node.getInChild(), newPrefix + "│   ", true));
+            sb.append(newPrefix).append("└── ").append("Value > ").append(node.getThreshold())
+                    .append(missingIn ? "" : " or missing").append(":\n");
+            sb.append(treeToString(node.getOutChild(), newPrefix + "    ", true));
+        } else if (node.isBinarySplit()) {
+            sb.append(prefix).append(isTail ? "└── " : "├── ").append("[Split on: ").append(node.getSplittingAttribute()).append("]\n");
+            String newPrefix = prefix + (isTail ? "    " : "│   ");
+            sb.append(newPrefix).append("├── ").append("Value in ").append(node.getInValues()).append(":\n");
+            sb.append(treeToString(node.getInChild(), newPrefix + "│   ", true));
+            sb.append(newPrefix).append("└── ").append("Value in ").append(node.getOutValues()).append(":\n");
+            sb.append(treeToString(node.getOutChild(), newPrefix + "    ", true));
         } else {
             sb.append(prefix).append(isTail ? "└── " : "├── ").append("[Split on: ").append(node.getSplittingAttribute()).append("]\n");
             List<Map.Entry<String, TreeNode>> children = node.getChildrenList();
@@ -212,6 +975,22 @@ public class DecisionTree {
         return root;
     }
 
+    // Index of the fallback label in getLabelValues()
+    int getFallbackClass() {
+        return fallbackClass;
+    }
+
+    // Installs a tree read back from a file; no training state comes with it
+    void restore(TreeNode root, List<String> labelValues, int fallbackClass) {
+        this.root = root;
+        this.labels = labelValues.toArray(new String[0]);
+        this.fallbackClass = fallbackClass;
+        this.fallbackLabel = labels[fallbackClass];
+        this.schema = null;
+        this.splitStatistics = null;
+        this.attributeScreening = null;
+    }
+
     // Prunes the tree using post-pruning with the provided validation data
     public void prune(List<Mushroom> validationData) {
         pruneRecursive(root, validationData);
@@ -224,21 +1003,21 @@ public class DecisionTree {
         }
 
         // Traverse all children first
-        for (TreeNode child : node.getChildren().values()) {
+        for (TreeNode child : node.getChildNodes()) {
             pruneRecursive(child, validationData);
         }
 
-        // Attempt to prune this node
-        Map<String, List<Mushroom>> partitions = Splitter.partitionByAttribute(validationData, node.getSplittingAttribute());
-
         // Calculate current accuracy
         double currentAccuracy = calculateAccuracy(validationData);
 
-        // Backup the current state
+        // Backup the current state; hiding the split makes the node a leaf while keeping its children.
+        // The leaf takes the node's own training counts and their majority, so predict and predictProba agree.
         String originalAttribute = node.getSplittingAttribute();
-        Map<String, TreeNode> originalChildren = new HashMap<>(node.getChildren());
+        int originalClass = node.getClassIndex();
+        long[] collapsedCounts = collapsedCounts(node);
+        int prunedClass = collapsedCounts != null ? argMax(collapsedCounts) : originalClass;
         node.setSplittingAttribute(null);
-        node.setLabel(majorityLabel(validationData));
+        node.setClassIndex(prunedClass);
 
         // Calculate new accuracy after pruning
         double prunedAccuracy = calculateAccuracy(validationData);
@@ -247,9 +1026,32 @@ public class DecisionTree {
         if (prunedAccuracy < currentAccuracy) {
             // Revert pruning
             node.setSplittingAttribute(originalAttribute);
-            node.setLabel(null);
-            node.setChildren(originalChildren);
+            node.setClassIndex(originalClass);
+        } else {
+            node.makeLeaf(prunedClass);
+            node.setClassCounts(collapsedCounts);
+        }
+    }
+
+    // Training class counts of a node: its own, or the sum of its children's when it has none; null if unknown
+    private static long[] collapsedCounts(TreeNode node) {
+        if (node.getClassCounts() != null || node.getChildren() == null) {
+            return node.getClassCounts();
+        }
+        long[] sum = null;
+        for (TreeNode child : node.getChildNodes()) {
+            long[] counts = collapsedCounts(child);
+            if (counts == null) {
+                continue;
+            }
+            if (sum == null) {
+                sum = new long[counts.length];
+            }
+            for (int c = 0; c < counts.length; c++) {
+                sum[c] += counts[c];
+            }
         }
+        return sum;
     }
 
     // Calculates the accuracy of the tree on the given data
@@ -257,7 +1059,7 @@ public class DecisionTree {
         int correct = 0;
         for (Mushroom m : data) {
             String prediction = predict(m);
-            String actual = m.isEdible() ? "EDIBLE" : "POISONOUS";
+            String actual = m.getLabel();
             if (prediction.equals(actual)) {
                 correct++;
             }
@@ -0,0 +1,636 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.CategoricalDataSet;
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Gradient-boosted regression trees for a two-class label under logistic loss.
+ *
+ * Every round fits a shallow tree to the gradients and hessians of the loss at the current
+ * scores, with leaf values from a Newton step shrunk by the learning rate. The attributes are
+ * dictionary-encoded into char columns once, like {@link CategoricalDataSet} (whose codes are
+ * translated directly when the records are its rows), and split finding works on per-value histograms of gradient and hessian sums: values are
+ * ordered by their gradient to hessian ratio and only the cuts of that order are scored, which
+ * is the second-order counterpart of the CART ordering used by binary splits. Histograms are
+ * built in parallel over attributes, and only for the smaller child of a split; the larger
+ * child's histogram is the parent's minus its sibling's.
+ *
+ * With a validation set, training stops once the validation log-loss has not improved for
+ * earlyStoppingRounds rounds, and the model keeps the trees up to the best round.
+ *
+ * The score is the log-odds of the first label value (EDIBLE for mushroom data). Values not seen
+ * in training follow the side of each split that received more training rows.
+ */
+public class GradientBoostedTrees implements ProbabilisticPredictor {
+
+    // Rows times attributes below which a histogram is built on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final char UNSEEN = Character.MAX_VALUE;
+    private static final int MAX_DICTIONARY_SIZE = Character.MAX_VALUE;
+    private static final double MIN_PROBABILITY = 1e-15;
+
+    private int rounds = 100;
+    private double learningRate = 0.1;
+    private int maxDepth = 3;
+    private int minSamplesLeaf = 20;
+    private double l2Regularization = 1.0;
+    private double minSplitGain = 0.0;
+    private int earlyStoppingRounds = 10;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private String[] labels = {"EDIBLE", "POISONOUS"};
+    private String[] attributes = new String[0];
+    private int[] schemaIndexes = new int[0];
+    private List<Map<String, Integer>> dictionaries = new ArrayList<>();
+    private double baseScore;
+    private List<RegressionTree> trees = new ArrayList<>();
+    private double[] validationLosses = new double[0];
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    // Maximum number of trees
+    public void setRounds(int rounds) {
+        this.rounds = requireAtLeast(rounds, 1, "rounds");
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    // Shrinkage applied to every tree's leaf values
+    public void setLearningRate(double learningRate) {
+        if (!(learningRate > 0 && learningRate <= 1)) {
+            throw new IllegalArgumentException("learningRate must be in (0, 1]");
+        }
+        this.learningRate = learningRate;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = requireAtLeast(maxDepth, 1, "maxDepth");
+    }
+
+    public int getMinSamplesLeaf() {
+        return minSamplesLeaf;
+    }
+
+    public void setMinSamplesLeaf(int minSamplesLeaf) {
+        this.minSamplesLeaf = requireAtLeast(minSamplesLeaf, 1, "minSamplesLeaf");
+    }
+
+    public double getL2Regularization() {
+        return l2Regularization;
+    }
+
+    // Added to the hessian sum of every leaf, shrinking leaves with little weight
+    public void setL2Regularization(double l2Regularization) {
+        if (l2Regularization < 0) {
+            throw new IllegalArgumentException("l2Regularization must not be negative");
+        }
+        this.l2Regularization = l2Regularization;
+    }
+
+    public double getMinSplitGain() {
+        return minSplitGain;
+    }
+
+    // Splits reducing the loss by no more than this are rejected
+    public void setMinSplitGain(double minSplitGain) {
+        this.minSplitGain = minSplitGain;
+    }
+
+    public int getEarlyStoppingRounds() {
+        return earlyStoppingRounds;
+    }
+
+    public void setEarlyStoppingRounds(int earlyStoppingRounds) {
+        this.earlyStoppingRounds = requireAtLeast(earlyStoppingRounds, 1, "earlyStoppingRounds");
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Threads building histograms; 1 trains on the calling thread only
+    public void setThreads(int threads) {
+        this.threads = requireAtLeast(threads, 1, "threads");
+    }
+
+    public void fit(List<Mushroom> training, List<String> attributes) {
+        fit(training, List.of(), attributes);
+    }
+
+    // Trains on the training records, stopping early on the validation records' log-loss if there are any
+    public void fit(List<Mushroom> training, List<Mushroom> validation, List<String> attributes) {
+        if (training.isEmpty()) {
+            throw new IllegalArgumentException("No training records");
+        }
+        Schema schema = training.get(0).getSchema();
+        if (schema.getClassCount() != 2) {
+            throw new IllegalArgumentException("Logistic loss needs a two-class label, got " + schema.getLabelValues());
+        }
+        this.labels = new String[]{schema.labelOf(0), schema.labelOf(1)};
+        this.attributes = attributes.toArray(new String[0]);
+        this.schemaIndexes = new int[this.attributes.length];
+        this.dictionaries = new ArrayList<>();
+        for (int a = 0; a < this.attributes.length; a++) {
+            schemaIndexes[a] = schema.indexOf(this.attributes[a]);
+            dictionaries.add(new HashMap<>());
+        }
+        char[][] columns = encode(training, true);
+        char[][] validationColumns = encode(validation, false);
+
+        int n = training.size();
+        double[] targets = new double[n];
+        long positives = 0;
+        for (int i = 0; i < n; i++) {
+            targets[i] = training.get(i).getClassIndex() == 0 ? 1.0 : 0.0;
+            positives += (long) targets[i];
+        }
+        baseScore = Math.log((positives + 0.5) / (n - positives + 0.5));
+
+        double[] scores = new double[n];
+        Arrays.fill(scores, baseScore);
+        double[] validationScores = new double[validation.size()];
+        Arrays.fill(validationScores, baseScore);
+        double[] gradients = new double[n];
+        double[] hessians = new double[n];
+        List<RegressionTree> grown = new ArrayList<>();
+        List<Double> losses = new ArrayList<>();
+        int bestRound = -1;
+        double bestLoss = Double.POSITIVE_INFINITY;
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            for (int round = 0; round < rounds; round++) {
+                for (int i = 0; i < n; i++) {
+                    double p = sigmoid(scores[i]);
+                    gradients[i] = p - targets[i];
+                    hessians[i] = Math.max(p * (1 - p), MIN_PROBABILITY);
+                }
+                RegressionTree tree = new TreeBuilder(columns, gradients, hessians, pool).build();
+                grown.add(tree);
+                for (int i = 0; i < n; i++) {
+                    scores[i] += tree.output(columns, i);
+                }
+
+                if (validation.isEmpty()) {
+                    continue;
+                }
+                double loss = 0.0;
+                for (int i = 0; i < validationScores.length; i++) {
+                    validationScores[i] += tree.output(validationColumns, i);
+                    double p = sigmoid(validationScores[i]);
+                    loss -= Math.log(Math.max(validation.get(i).getClassIndex() == 0 ? p : 1 - p, MIN_PROBABILITY));
+                }
+                loss /= validationScores.length;
+                losses.add(loss);
+                if (loss < bestLoss) {
+                    bestLoss = loss;
+                    bestRound = round;
+                } else if (round - bestRound >= earlyStoppingRounds) {
+                    break;
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        this.trees = bestRound < 0 ? grown : new ArrayList<>(grown.subList(0, bestRound + 1));
+        this.validationLosses = losses.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Encodes the records column by column; training records extend the dictionaries, others map
+     * new values to UNSEEN. Rows of one CategoricalDataSet are encoded from that dataset's codes,
+     * looking each of its values up once rather than once per row.
+     */
+    private char[][] encode(List<Mushroom> records, boolean training) {
+        char[][] columns = new char[attributes.length][records.size()];
+        CategoricalDataSet source = records.isEmpty() ? null : CategoricalDataSet.sourceOf(records.get(0));
+        int[] rows = source == null ? null : new int[records.size()];
+        for (int i = 0; rows != null && i < rows.length; i++) {
+            rows[i] = source.rowOf(records.get(i));
+            if (rows[i] < 0) {
+                rows = null;
+            }
+        }
+        for (int a = 0; a < attributes.length; a++) {
+            if (rows != null && schemaIndexes[a] >= 0) {
+                encodeCodes(source, rows, a, training, columns[a]);
+            } else {
+                for (int i = 0; i < records.size(); i++) {
+                    columns[a][i] = code(a, valueOf(records.get(i), a), training);
+                }
+            }
+        }
+        return columns;
+    }
+
+    // Translates the dataset's codes of an attribute, each on its first use so codes keep the order of first appearance
+    private void encodeCodes(CategoricalDataSet source, int[] rows, int attribute, boolean training, char[] column) {
+        int index = schemaIndexes[attribute];
+        List<String> values = source.getDictionary(index);
+        int[] translated = new int[values.size()];
+        Arrays.fill(translated, -1);
+        for (int i = 0; i < rows.length; i++) {
+            int code = source.getCode(rows[i], index);
+            if (translated[code] < 0) {
+                translated[code] = code(attribute, values.get(code), training);
+            }
+            column[i] = (char) translated[code];
+        }
+    }
+
+    // Code of the value, added to the dictionary when training
+    private char code(int attribute, String value, boolean training) {
+        Map<String, Integer> dictionary = dictionaries.get(attribute);
+        Integer code = dictionary.get(value);
+        if (code == null && training) {
+            if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+                throw new IllegalArgumentException("Attribute " + attributes[attribute] + " has more than "
+                        + MAX_DICTIONARY_SIZE + " distinct values");
+            }
+            code = dictionary.size();
+            dictionary.put(value, code);
+        }
+        return code == null ? UNSEEN : (char) code.intValue();
+    }
+
+    private String valueOf(Mushroom record, int attribute) {
+        int index = schemaIndexes[attribute];
+        return index >= 0 ? record.getValue(index) : record.getValue(attributes[attribute]);
+    }
+
+    // Log-odds of the first label value
+    public double score(Mushroom record) {
+        char[] codes = new char[attributes.length];
+        for (int a = 0; a < attributes.length; a++) {
+            Integer code = dictionaries.get(a).get(valueOf(record, a));
+            codes[a] = code == null ? UNSEEN : (char) code.intValue();
+        }
+        double score = baseScore;
+        for (RegressionTree tree : trees) {
+            score += tree.output(codes);
+        }
+        return score;
+    }
+
+    @Override
+    public String predict(Mushroom record) {
+        return score(record) >= 0 ? labels[0] : labels[1];
+    }
+
+    @Override
+    public void predictProba(Mushroom record, double[] out) {
+        double p = sigmoid(score(record));
+        out[0] = p;
+        out[1] = 1 - p;
+    }
+
+    @Override
+    public List<String> getLabelValues() {
+        return List.of(labels);
+    }
+
+    public int getTreeCount() {
+        return trees.size();
+    }
+
+    // Validation log-loss after each round of the last fit, including rounds past the best one
+    public double[] getValidationLosses() {
+        return validationLosses.clone();
+    }
+
+    // Fitted state read by TreeHash
+    double getBaseScore() {
+        return baseScore;
+    }
+
+    List<String> getAttributes() {
+        return List.of(attributes);
+    }
+
+    List<Map<String, Integer>> getDictionaries() {
+        return dictionaries;
+    }
+
+    List<RegressionTree> getTrees() {
+        return trees;
+    }
+
+    private static double sigmoid(double score) {
+        return 1.0 / (1.0 + Math.exp(-score));
+    }
+
+    private static int requireAtLeast(int value, int min, String name) {
+        if (value < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min);
+        }
+        return value;
+    }
+
+    /**
+     * A regression tree in flat arrays. Node 0 is the root; a node with attribute -1 is a leaf.
+     * Codes whose bit is set in a node's mask go to its in child.
+     */
+    static final class RegressionTree {
+        final int[] attribute;
+        final long[][] masks;
+        final boolean[] unseenIn;
+        final int[] in;
+        final int[] out;
+        final double[] value;
+
+        RegressionTree(int[] attribute, long[][] masks, boolean[] unseenIn, int[] in, int[] out, double[] value) {
+            this.attribute = attribute;
+            this.masks = masks;
+            this.unseenIn = unseenIn;
+            this.in = in;
+            this.out = out;
+            this.value = value;
+        }
+
+        double output(char[][] columns, int row) {
+            int node = 0;
+            while (attribute[node] >= 0) {
+                node = goesIn(node, columns[attribute[node]][row]) ? in[node] : out[node];
+            }
+            return value[node];
+        }
+
+        double output(char[] codes) {
+            int node = 0;
+            while (attribute[node] >= 0) {
+                node = goesIn(node, codes[attribute[node]]) ? in[node] : out[node];
+            }
+            return value[node];
+        }
+
+        private boolean goesIn(int node, char code) {
+            if (code == UNSEEN) {
+                return unseenIn[node];
+            }
+            long[] mask = masks[node];
+            return (code >>> 6) < mask.length && ((mask[code >>> 6] >>> code) & 1L) != 0;
+        }
+    }
+
+    // Per-value sums of gradients, hessians and rows of one node, for every attribute
+    private static final class Histogram {
+        final double[][] gradients;
+        final double[][] hessians;
+        final int[][] rows;
+        double gradientTotal;
+        double hessianTotal;
+        int rowTotal;
+
+        Histogram(int[] sizes) {
+            gradients = new double[sizes.length][];
+            hessians = new double[sizes.length][];
+            rows = new int[sizes.length][];
+            for (int a = 0; a < sizes.length; a++) {
+                gradients[a] = new double[sizes[a]];
+                hessians[a] = new double[sizes[a]];
+                rows[a] = new int[sizes[a]];
+            }
+        }
+
+        // The parent's sums minus the sibling's
+        static Histogram difference(Histogram parent, Histogram sibling, int[] sizes) {
+            Histogram result = new Histogram(sizes);
+            for (int a = 0; a < sizes.length; a++) {
+                for (int v = 0; v < sizes[a]; v++) {
+                    result.gradients[a][v] = parent.gradients[a][v] - sibling.gradients[a][v];
+                    result.hessians[a][v] = parent.hessians[a][v] - sibling.hessians[a][v];
+                    result.rows[a][v] = parent.rows[a][v] - sibling.rows[a][v];
+                }
+            }
+            result.gradientTotal = parent.gradientTotal - sibling.gradientTotal;
+            result.hessianTotal = parent.hessianTotal - sibling.hessianTotal;
+            result.rowTotal = parent.rowTotal - sibling.rowTotal;
+            return result;
+        }
+    }
+
+    // Best split of a node: the codes sent to the in child and the loss reduction
+    private static final class Split {
+        final int attribute;
+        final double gain;
+        final long[] mask;
+        final boolean unseenIn;
+
+        Split(int attribute, double gain, long[] mask, boolean unseenIn) {
+            this.attribute = attribute;
+            this.gain = gain;
+            this.mask = mask;
+            this.unseenIn = unseenIn;
+        }
+    }
+
+    // Grows one regression tree depth-first into growing node arrays
+    private final class TreeBuilder {
+        final char[][] columns;
+        final double[] gradients;
+        final double[] hessians;
+        final ForkJoinPool pool;
+        final int[] sizes;
+        final List<Integer> attributeOf = new ArrayList<>();
+        final List<long[]> masks = new ArrayList<>();
+        final List<Boolean> unseenIn = new ArrayList<>();
+        final List<Integer> in = new ArrayList<>();
+        final List<Integer> out = new ArrayList<>();
+        final List<Double> values = new ArrayList<>();
+
+        TreeBuilder(char[][] columns, double[] gradients, double[] hessians, ForkJoinPool pool) {
+            this.columns = columns;
+            this.gradients = gradients;
+            this.hessians = hessians;
+            this.pool = pool;
+            this.sizes = new int[columns.length];
+            for (int a = 0; a < columns.length; a++) {
+                sizes[a] = dictionaries.get(a).size();
+            }
+        }
+
+        RegressionTree build() {
+            int[] rows = IntStream.range(0, gradients.length).toArray();
+            grow(rows, histogram(rows), 0);
+            int nodes = values.size();
+            int[] attribute = new int[nodes];
+            boolean[] unseen = new boolean[nodes];
+            int[] inChild = new int[nodes];
+            int[] outChild = new int[nodes];
+            double[] value = new double[nodes];
+            for (int i = 0; i < nodes; i++) {
+                attribute[i] = attributeOf.get(i);
+                unseen[i] = unseenIn.get(i);
+                inChild[i] = in.get(i);
+                outChild[i] = out.get(i);
+                value[i] = values.get(i);
+            }
+            return new RegressionTree(attribute, masks.toArray(new long[0][]), unseen, inChild, outChild, value);
+        }
+
+        // Adds the node for the rows and its subtree, returning the node's index
+        private int grow(int[] rows, Histogram histogram, int depth) {
+            int node = values.size();
+            attributeOf.add(-1);
+            masks.add(null);
+            unseenIn.add(false);
+            in.add(-1);
+            out.add(-1);
+            values.add(-learningRate * histogram.gradientTotal / (histogram.hessianTotal + l2Regularization));
+
+            Split split = depth < maxDepth && rows.length >= 2 * minSamplesLeaf ? bestSplit(histogram) : null;
+            if (split == null) {
+                return node;
+            }
+            int inCount = 0;
+            char[] column = columns[split.attribute];
+            for (int row : rows) {
+                if (((split.mask[column[row] >>> 6] >>> column[row]) & 1L) != 0) {
+                    inCount++;
+                }
+            }
+            int[] inRows = new int[inCount];
+            int[] outRows = new int[rows.length - inCount];
+            int i = 0;
+            int o = 0;
+            for (int row : rows) {
+                if (((split.mask[column[row] >>> 6] >>> column[row]) & 1L) != 0) {
+                    inRows[i++] = row;
+                } else {
+                    outRows[o++] = row;
+                }
+            }
+
+            // Only the smaller child is scanned; the larger one's histogram follows by subtraction
+            Histogram inHistogram;
+            Histogram outHistogram;
+            if (inRows.length <= outRows.length) {
+                inHistogram = histogram(inRows);
+                outHistogram = Histogram.difference(histogram, inHistogram, sizes);
+            } else {
+                outHistogram = histogram(outRows);
+                inHistogram = Histogram.difference(histogram, outHistogram, sizes);
+            }
+            attributeOf.set(node, split.attribute);
+            masks.set(node, split.mask);
+            unseenIn.set(node, split.unseenIn);
+            int inNode = grow(inRows, inHistogram, depth + 1);
+            int outNode = grow(outRows, outHistogram, depth + 1);
+            in.set(node, inNode);
+            out.set(node, outNode);
+            return node;
+        }
+
+        private Histogram histogram(int[] rows) {
+            Histogram histogram = new Histogram(sizes);
+            if (pool != null && (long) rows.length * columns.length >= PARALLEL_THRESHOLD) {
+                pool.submit(() -> IntStream.range(0, columns.length).parallel().forEach(a -> fill(histogram, a, rows))).join();
+            } else {
+                for (int a = 0; a < columns.length; a++) {
+                    fill(histogram, a, rows);
+                }
+            }
+            for (int row : rows) {
+                histogram.gradientTotal += gradients[row];
+                histogram.hessianTotal += hessians[row];
+            }
+            histogram.rowTotal = rows.length;
+            return histogram;
+        }
+
+        private void fill(Histogram histogram, int attribute, int[] rows) {
+            char[] column = columns[attribute];
+            double[] g = histogram.gradients[attribute];
+            double[] h = histogram.hessians[attribute];
+            int[] n = histogram.rows[attribute];
+            for (int row : rows) {
+                char code = column[row];
+                g[code] += gradients[row];
+                h[code] += hessians[row];
+                n[code]++;
+            }
+        }
+
+        // Scores the cuts of every attribute's values ordered by gradient to hessian ratio
+        private Split bestSplit(Histogram histogram) {
+            double lambda = l2Regularization;
+            double gradientTotal = histogram.gradientTotal;
+            double hessianTotal = histogram.hessianTotal;
+            int rowTotal = histogram.rowTotal;
+            double parentScore = gradientTotal * gradientTotal / (hessianTotal + lambda);
+            Split best = null;
+            for (int a = 0; a < columns.length; a++) {
+                double[] g = histogram.gradients[a];
+                double[] h = histogram.hessians[a];
+                int[] n = histogram.rows[a];
+                List<Integer> present = new ArrayList<>();
+                for (int v = 0; v < n.length; v++) {
+                    if (n[v] > 0) {
+                        present.add(v);
+                    }
+                }
+                if (present.size() < 2) {
+                    continue;
+                }
+                present.sort(Comparator.comparingDouble(v -> g[v] / h[v]));
+                double gIn = 0;
+                double hIn = 0;
+                int nIn = 0;
+                int bestCut = -1;
+                double bestGain = best == null ? minSplitGain : Math.max(minSplitGain, best.gain);
+                boolean bestUnseenIn = false;
+                for (int cut = 1; cut < present.size(); cut++) {
+                    int v = present.get(cut - 1);
+                    gIn += g[v];
+                    hIn += h[v];
+                    nIn += n[v];
+                    if (nIn < minSamplesLeaf || rowTotal - nIn < minSamplesLeaf) {
+                        continue;
+                    }
+                    double gOut = gradientTotal - gIn;
+                    double hOut = hessianTotal - hIn;
+                    double gain = 0.5 * (gIn * gIn / (hIn + lambda) + gOut * gOut / (hOut + lambda) - parentScore);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestCut = cut;
+                        bestUnseenIn = nIn >= rowTotal - nIn;
+                    }
+                }
+                if (bestCut > 0) {
+                    long[] mask = new long[(n.length + 63) >>> 6];
+                    for (int i = 0; i < bestCut; i++) {
+                        int code = present.get(i);
+                        mask[code >>> 6] |= 1L << code;
+                    }
+                    best = new Split(a, bestGain, mask, bestUnseenIn);
+                }
+            }
+            return best;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GradientBoostedTrees[trees=" + trees.size() + ", baseScore=" + baseScore + "]";
+    }
+}
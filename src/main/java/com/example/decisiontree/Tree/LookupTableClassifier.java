@@ -0,0 +1,137 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A trained tree compiled into a dense direct-address table.
+ *
+ * Each attribute the tree splits on contributes one digit (its {@link AttributeEncoder} code) to a
+ * mixed-radix index, and the table stores the label for every combination of codes. Prediction is
+ * then one code lookup per used attribute and a single array read, with no tree traversal.
+ * Only trees whose used attributes have a small enough cardinality product can be compiled.
+ * Cells hold one-byte label codes, so the tree may have at most {@link #MAX_LABELS} labels.
+ * Unseen values take the most frequent child, so the tree must use that UnseenValueStrategy.
+ */
+public class LookupTableClassifier implements Predictor {
+
+    public static final int DEFAULT_MAX_CELLS = 1 << 22;
+
+    public static final int MAX_LABELS = 256;
+
+    private final AttributeEncoder encoder;
+    private final int[] strides;
+    private final byte[] table;
+    private final String[] labels;
+
+    private LookupTableClassifier(AttributeEncoder encoder, int[] strides, byte[] table, String[] labels) {
+        this.encoder = encoder;
+        this.strides = strides;
+        this.table = table;
+        this.labels = labels;
+    }
+
+    // Number of table cells needed for the tree, or -1 if it exceeds maxCells
+    public static long requiredCells(DecisionTree tree, int maxCells) {
+        return requiredCells(new AttributeEncoder(tree.getRoot()), maxCells);
+    }
+
+    private static long requiredCells(AttributeEncoder encoder, int maxCells) {
+        long cells = 1;
+        for (int a = 0; a < encoder.getAttributeCount(); a++) {
+            cells *= encoder.getCardinality(a);
+            if (cells > maxCells) {
+                return -1;
+            }
+        }
+        return cells;
+    }
+
+    public static LookupTableClassifier compile(DecisionTree tree) {
+        return compile(tree, DEFAULT_MAX_CELLS);
+    }
+
+    public static LookupTableClassifier compile(DecisionTree tree, int maxCells) {
+        if (tree.getRoot() == null) {
+            throw new IllegalStateException("The tree has not been built");
+        }
+        tree.requireMostFrequentChildRouting("A lookup table");
+        AttributeEncoder encoder = new AttributeEncoder(tree.getRoot());
+        long cells = requiredCells(encoder, maxCells);
+        if (cells < 0) {
+            throw new IllegalArgumentException("Lookup table for this tree would exceed " + maxCells + " cells");
+        }
+
+        int attributeCount = encoder.getAttributeCount();
+        int[] strides = new int[attributeCount];
+        int stride = 1;
+        for (int a = attributeCount - 1; a >= 0; a--) {
+            strides[a] = stride;
+            stride *= encoder.getCardinality(a);
+        }
+
+        List<String> labels = new ArrayList<>(tree.getLabelValues());
+        byte[] table = new byte[(int) cells];
+        int[] digits = new int[attributeCount];
+        for (int index = 0; index < table.length; index++) {
+            int rest = index;
+            for (int a = 0; a < attributeCount; a++) {
+                digits[a] = rest / strides[a];
+                rest -= digits[a] * strides[a];
+            }
+            table[index] = labelCode(labels, classify(tree, encoder, digits));
+        }
+        return new LookupTableClassifier(encoder, strides, table, labels.toArray(new String[0]));
+    }
+
+    // Walks the tree with attribute codes instead of a record
+    private static String classify(DecisionTree tree, AttributeEncoder encoder, int[] digits) {
+        TreeNode node = tree.getRoot();
+        while (!node.isLeaf()) {
+            int a = encoder.indexOf(node.getSplittingAttribute());
+            String value = encoder.getValue(a, digits[a]);
+            TreeNode child = value == null ? null : node.childFor(value);
+            if (child == null) {
+                // Unseen values follow the most frequent child, like DecisionTree's default strategy
+                child = node.getMostFrequentChild();
+            }
+            if (child == null) {
+                return tree.getFallbackLabel();
+            }
+            node = child;
+        }
+        return tree.getLabel(node);
+    }
+
+    // Code of the label in labels, adding labels that are not there yet
+    private static byte labelCode(List<String> labels, String label) {
+        int code = labels.indexOf(label);
+        if (code < 0) {
+            code = labels.size();
+            labels.add(label);
+        }
+        if (code >= MAX_LABELS) {
+            throw new IllegalArgumentException("Lookup table supports at most " + MAX_LABELS + " labels");
+        }
+        return (byte) code;
+    }
+
+    @Override
+    public String predict(Mushroom record) {
+        int index = 0;
+        for (int a = 0; a < strides.length; a++) {
+            index += encoder.code(a, record) * strides[a];
+        }
+        return labels[table[index] & 0xFF];
+    }
+
+    public int getTableSize() {
+        return table.length;
+    }
+
+    public AttributeEncoder getEncoder() {
+        return encoder;
+    }
+}
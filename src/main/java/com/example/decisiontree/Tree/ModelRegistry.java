@@ -0,0 +1,242 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves many decision trees by key, e.g. one per customer segment, within a memory budget.
+ *
+ * Models are registered as {@link TreeFile}s and loaded on first use. Lookups go through a
+ * concurrent map and a volatile read, without locks; only loading a model locks, and only that
+ * model. When the estimated heap of the loaded models exceeds the budget, the least recently used
+ * ones are dropped and reloaded from disk when next asked for. All trees are read through one
+ * {@link TreeFile.DictionaryPool}, so models trained on the same data share their dictionaries.
+ *
+ * Registering a key again replaces its file and bumps its version; requests already holding the
+ * old tree finish on it.
+ */
+public class ModelRegistry {
+
+    // Estimated heap of a node object, a reference and an array header, for the memory budget
+    private static final long NODE_BYTES = 56;
+    private static final long REFERENCE_BYTES = 4;
+    private static final long ARRAY_BYTES = 16;
+
+    private final ConcurrentHashMap<String, Model> models = new ConcurrentHashMap<>();
+    private final TreeFile.DictionaryPool dictionaries = new TreeFile.DictionaryPool();
+    private final long memoryBudget;
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Model {
+        final String key;
+        final Path file;
+        final int version;
+        volatile DecisionTree tree;
+        volatile long lastUsed;
+        long bytes;
+
+        Model(String key, Path file, int version) {
+            this.key = key;
+            this.file = file;
+            this.version = version;
+        }
+    }
+
+    public ModelRegistry(long memoryBudgetBytes) {
+        if (memoryBudgetBytes < 0) {
+            throw new IllegalArgumentException("memoryBudgetBytes must be at least 0");
+        }
+        this.memoryBudget = memoryBudgetBytes;
+    }
+
+    // Registers the model file for the key, replacing any earlier one; the file is read on first use
+    public void register(String key, Path file) {
+        Model[] replaced = new Model[1];
+        models.compute(key, (k, old) -> {
+            replaced[0] = old;
+            return new Model(key, file, old == null ? 1 : old.version + 1);
+        });
+        if (replaced[0] != null) {
+            unload(replaced[0], false);
+        }
+    }
+
+    // Writes the tree to the file and registers the file under the key
+    public void register(String key, DecisionTree tree, Path file) throws IOException {
+        TreeFile.write(tree, file);
+        register(key, file);
+    }
+
+    public boolean unregister(String key) {
+        Model removed = models.remove(key);
+        if (removed != null) {
+            unload(removed, false);
+        }
+        return removed != null;
+    }
+
+    // The key's tree, loading it if it is not in memory
+    public DecisionTree get(String key) {
+        Model model = models.get(key);
+        if (model == null) {
+            throw new IllegalArgumentException("No model registered for " + key);
+        }
+        model.lastUsed = System.nanoTime();
+        DecisionTree tree = model.tree;
+        if (tree != null) {
+            hits.increment();
+            return tree;
+        }
+        return load(model);
+    }
+
+    public String predict(String key, Mushroom record) {
+        return get(key).predict(record);
+    }
+
+    // Batch probabilities from the key's tree, laid out as in DecisionTree.predictProba(List, double[])
+    public void predictProba(String key, List<Mushroom> records, double[] out) {
+        get(key).predictProba(records, out);
+    }
+
+    private DecisionTree load(Model model) {
+        DecisionTree tree;
+        synchronized (model) {
+            tree = model.tree;
+            if (tree != null) {
+                hits.increment();
+                return tree;
+            }
+            try {
+                tree = TreeFile.read(model.file, dictionaries);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load model " + model.key + " from " + model.file, e);
+            }
+            model.bytes = estimateBytes(tree.getRoot());
+            model.tree = tree;
+            residentBytes.addAndGet(model.bytes);
+            loads.increment();
+        }
+        if (models.get(model.key) != model) {
+            // Replaced or unregistered while loading; serve this request but do not keep the tree
+            unload(model, false);
+        }
+        evictOver(model);
+        return tree;
+    }
+
+    // Unloads least recently used models other than keep until the loaded ones fit the budget
+    private void evictOver(Model keep) {
+        while (residentBytes.get() > memoryBudget) {
+            Model coldest = null;
+            for (Model model : models.values()) {
+                if (model != keep && model.tree != null && (coldest == null || model.lastUsed < coldest.lastUsed)) {
+                    coldest = model;
+                }
+            }
+            if (coldest == null) {
+                return;
+            }
+            unload(coldest, true);
+        }
+    }
+
+    private void unload(Model model, boolean eviction) {
+        synchronized (model) {
+            if (model.tree == null) {
+                return;
+            }
+            model.tree = null;
+            residentBytes.addAndGet(-model.bytes);
+            if (eviction) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // Heap estimate of the tree's nodes, their child arrays and class counts; shared dictionaries are not counted
+    static long estimateBytes(TreeNode root) {
+        long bytes = 0;
+        Deque<TreeNode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            bytes += NODE_BYTES;
+            if (node.getClassCounts() != null) {
+                bytes += ARRAY_BYTES + (long) Long.BYTES * node.getClassCounts().length;
+            }
+            TreeNode[] children = node.getChildren();
+            if (children != null && !node.isLeaf()) {
+                bytes += ARRAY_BYTES + REFERENCE_BYTES * children.length;
+                for (TreeNode child : children) {
+                    if (child != null) {
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public Set<String> getKeys() {
+        return models.keySet();
+    }
+
+    // Number of times the key has been registered, or 0 if it is not registered
+    public int getVersion(String key) {
+        Model model = models.get(key);
+        return model == null ? 0 : model.version;
+    }
+
+    public boolean isLoaded(String key) {
+        Model model = models.get(key);
+        return model != null && model.tree != null;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    // Estimated heap held by the loaded models
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Distinct value dictionaries shared by the models read so far
+    public int getSharedDictionaryCount() {
+        return dictionaries.getDictionaryCount();
+    }
+
+    @Override
+    public String toString() {
+        long loaded = models.values().stream().filter(m -> m.tree != null).count();
+        return String.format("Models=%d (loaded %d), Resident=%d/%d bytes, Hits=%d, Loads=%d, Evictions=%d, Dictionaries=%d",
+                models.size(), loaded, getResidentBytes(), memoryBudget, getHits(), getLoads(), getEvictions(),
+                getSharedDictionaryCount());
+    }
+}
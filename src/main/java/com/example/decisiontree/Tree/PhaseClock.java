@@ -0,0 +1,42 @@
+package com.example.decisiontree.Tree;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures wall time and bytes allocated by the current thread between two points.
+ */
+final class PhaseClock {
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    private long startNanos;
+    private long startBytes;
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return bean;
+        }
+        return null;
+    }
+
+    static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    void start() {
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    long allocatedSinceStart() {
+        return startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional bounded cache in front of a DecisionTree.
+ *
+ * Records are keyed by the packed codes of only the attributes the tree splits on (see
+ * {@link AttributeEncoder}), so records that differ in irrelevant attributes share one entry.
+ * The cache is split into independently locked LRU segments to keep scoring threads from
+ * contending on a single lock. Swapping the model replaces all segments at once.
+ */
+public class PredictionCache implements Predictor {
+
+    // Rough heap cost of one entry: LinkedHashMap entry, boxed Long key and table slot
+    public static final int ESTIMATED_ENTRY_BYTES = 80;
+    private static final int SEGMENTS = 16;
+
+    private final int maxEntries;
+    private volatile State state;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PredictionCache(DecisionTree model, int maxEntries) {
+        if (maxEntries < SEGMENTS) {
+            throw new IllegalArgumentException("maxEntries must be at least " + SEGMENTS);
+        }
+        this.maxEntries = maxEntries;
+        this.state = new State(model);
+    }
+
+    // Creates a cache bounded by an estimated heap budget instead of an entry count
+    public static PredictionCache withMaxBytes(DecisionTree model, long maxBytes) {
+        long entries = Math.max(SEGMENTS, maxBytes / ESTIMATED_ENTRY_BYTES);
+        return new PredictionCache(model, (int) Math.min(entries, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public String predict(Mushroom record) {
+        State current = state;
+        if (!current.encoder.isPackable()) {
+            bypasses.increment();
+            return current.model.predict(record);
+        }
+
+        long key = current.encoder.encode(record);
+        Segment segment = current.segments[segmentIndex(key)];
+        String label;
+        synchronized (segment) {
+            label = segment.get(key);
+        }
+        if (label != null) {
+            hits.increment();
+            return label;
+        }
+
+        misses.increment();
+        label = current.model.predict(record);
+        synchronized (segment) {
+            segment.put(key, label);
+        }
+        return label;
+    }
+
+    // Replaces the model and drops every cached prediction
+    public void swapModel(DecisionTree model) {
+        state = new State(model);
+    }
+
+    // Drops every cached prediction, e.g. after the current model was pruned in place
+    public void invalidate() {
+        state = new State(state.model);
+    }
+
+    public DecisionTree getModel() {
+        return state.model;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Predictions served by the tree directly because the used attributes do not fit a packed key
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum() + bypasses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : state.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Entries=%d, Hits=%d, Misses=%d, Bypasses=%d, Evictions=%d, HitRate=%.2f",
+                size(), getHits(), getMisses(), getBypasses(), getEvictions(), getHitRate());
+    }
+
+    private static int segmentIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 60) & (SEGMENTS - 1);
+    }
+
+    private final class State {
+        final DecisionTree model;
+        final AttributeEncoder encoder;
+        final Segment[] segments = new Segment[SEGMENTS];
+
+        State(DecisionTree model) {
+            this.model = model;
+            this.encoder = new AttributeEncoder(model.getRoot());
+            for (int i = 0; i < SEGMENTS; i++) {
+                segments[i] = new Segment(maxEntries / SEGMENTS);
+            }
+        }
+    }
+
+    // Access-ordered LRU map of one segment; callers hold the segment's lock
+    private final class Segment {
+        private final LinkedHashMap<Long, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        String get(long key) {
+            return entries.get(key);
+        }
+
+        void put(long key, String label) {
+            entries.put(key, label);
+            if (entries.size() > capacity) {
+                Iterator<Long> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.decisiontree.Tree;
+
+/**
+ * Receives the path taken by a single prediction, see {@link DecisionTree#predict(com.example.decisiontree.DataSet.Mushroom, PredictionListener)}.
+ */
+public interface PredictionListener {
+
+    // depth is the number of splits followed; fallback is true when an unseen value ended the traversal
+    void onPrediction(int depth, boolean fallback);
+}
@@ -0,0 +1,11 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+/**
+ * Anything that can classify a Mushroom, returning one of its label values (e.g. "EDIBLE" or "POISONOUS").
+ */
+public interface Predictor {
+
+    String predict(Mushroom record);
+}
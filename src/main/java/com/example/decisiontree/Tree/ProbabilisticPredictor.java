@@ -0,0 +1,27 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+
+import java.util.List;
+
+/**
+ * A predictor that also gives a probability for every label value.
+ */
+public interface ProbabilisticPredictor extends Predictor {
+
+    // Label values in the order of the probabilities
+    List<String> getLabelValues();
+
+    // Writes one probability per label value into out
+    void predictProba(Mushroom record, double[] out);
+
+    // Batch variant: the probability of label c for record i goes to out[i * getLabelValues().size() + c]
+    default void predictProba(List<Mushroom> records, double[] out) {
+        int classCount = getLabelValues().size();
+        double[] probabilities = new double[classCount];
+        for (int i = 0; i < records.size(); i++) {
+            predictProba(records.get(i), probabilities);
+            System.arraycopy(probabilities, 0, out, i * classCount, classCount);
+        }
+    }
+}
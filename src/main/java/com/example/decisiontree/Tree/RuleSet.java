@@ -0,0 +1,176 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.Metrics.Splitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flat rule representation of a trained tree: one rule per leaf, holding the attribute tests
+ * on the path from the root. The rules are mutually exclusive, so at most one matches a record.
+ * Unseen values match the rules of the most frequent child, so the tree must use that
+ * UnseenValueStrategy.
+ */
+public class RuleSet implements Predictor {
+
+    // Tests that an attribute takes one of a set of values (a single value for multiway splits)
+    public static class Condition {
+        private final String attribute;
+        private final Set<String> values;
+        // If set, the condition also matches every value outside these known values
+        private final Set<String> knownValues;
+
+        public Condition(String attribute, Set<String> values) {
+            this(attribute, values, null);
+        }
+
+        public Condition(String attribute, Set<String> values, Set<String> knownValues) {
+            this.attribute = attribute;
+            this.values = Collections.unmodifiableSet(values);
+            this.knownValues = knownValues == null ? null : Collections.unmodifiableSet(knownValues);
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public Set<String> getValues() {
+            return values;
+        }
+
+        public boolean matchesUnseen() {
+            return knownValues != null;
+        }
+
+        public boolean matches(Mushroom record) {
+            String value = Splitter.getAttributeValue(record, attribute);
+            return values.contains(value) || (knownValues != null && !knownValues.contains(value));
+        }
+
+        @Override
+        public String toString() {
+            String test = values.size() == 1
+                    ? attribute + " = " + values.iterator().next()
+                    : attribute + " IN " + values;
+            return knownValues == null ? test : "(" + test + " OR " + attribute + " unseen)";
+        }
+    }
+
+    public static class Rule {
+        private final List<Condition> conditions;
+        private final String label;
+
+        public Rule(List<Condition> conditions, String label) {
+            this.conditions = Collections.unmodifiableList(conditions);
+            this.label = label;
+        }
+
+        public List<Condition> getConditions() {
+            return conditions;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean matches(Mushroom record) {
+            for (Condition condition : conditions) {
+                if (!condition.matches(record)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("IF ");
+            if (conditions.isEmpty()) {
+                sb.append("TRUE");
+            }
+            for (int i = 0; i < conditions.size(); i++) {
+                if (i > 0) {
+                    sb.append(" AND ");
+                }
+                sb.append(conditions.get(i));
+            }
+            return sb.append(" THEN ").append(label).toString();
+        }
+    }
+
+    private final List<Rule> rules;
+    private final String fallbackLabel;
+
+    private RuleSet(List<Rule> rules, String fallbackLabel) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.fallbackLabel = fallbackLabel;
+    }
+
+    // Extracts one rule per leaf of the tree
+    public static RuleSet from(DecisionTree tree) {
+        tree.requireMostFrequentChildRouting("A rule set");
+        List<Rule> rules = new ArrayList<>();
+        if (tree.getRoot() != null) {
+            collect(tree, tree.getRoot(), new ArrayList<>(), rules);
+        }
+        return new RuleSet(rules, tree.getFallbackLabel());
+    }
+
+    private static void collect(DecisionTree tree, TreeNode node, List<Condition> path, List<Rule> rules) {
+        if (node.isLeaf()) {
+            rules.add(new Rule(new ArrayList<>(path), tree.getLabel(node)));
+            return;
+        }
+        // The branch taking unseen values, as DecisionTree routes them by default, also matches them
+        TreeNode unseenChild = node.getMostFrequentChild();
+        if (node.isBinarySplit()) {
+            Set<String> known = new HashSet<>(node.getInValues());
+            known.addAll(node.getOutValues());
+            path.add(condition(node, node.getInValues(), node.getInChild() == unseenChild, known));
+            collect(tree, node.getInChild(), path, rules);
+            path.set(path.size() - 1, condition(node, node.getOutValues(), node.getOutChild() == unseenChild, known));
+            collect(tree, node.getOutChild(), path, rules);
+            path.remove(path.size() - 1);
+            return;
+        }
+        Set<String> known = node.getChildValues();
+        for (Map.Entry<String, TreeNode> child : node.getChildrenList()) {
+            path.add(condition(node, Set.of(child.getKey()), child.getValue() == unseenChild, known));
+            collect(tree, child.getValue(), path, rules);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private static Condition condition(TreeNode node, Set<String> values, boolean takesUnseen, Set<String> known) {
+        return new Condition(node.getSplittingAttribute(), values, takesUnseen ? new HashSet<>(known) : null);
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    // Returns the label of the matching rule, or the tree's fallback label when no rule matches
+    @Override
+    public String predict(Mushroom record) {
+        for (Rule rule : rules) {
+            if (rule.matches(record)) {
+                return rule.getLabel();
+            }
+        }
+        return fallbackLabel;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Rule rule : rules) {
+            sb.append(rule).append('\n');
+        }
+        return sb.toString();
+    }
+}
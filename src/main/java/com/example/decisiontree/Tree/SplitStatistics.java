@@ -0,0 +1,141 @@
+package com.example.decisiontree.Tree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Split statistics aggregated while a tree is grown: per attribute the number of splits and the
+ * impurity decrease they bring, weighted by the share of training rows reaching each split, and
+ * per depth the splits, leaves, rows split and mean split score.
+ *
+ * Impurity is Gini for trees grown under the Gini criterion and entropy otherwise, so importances
+ * are comparable across criteria that score splits on different scales. The statistics describe
+ * the tree as grown; pruning afterwards does not change them.
+ */
+public class SplitStatistics {
+
+    private final List<String> attributes;
+    private final double[] weightedDecrease;
+    private final int[] splitCounts;
+    private final long rootRows;
+    private int[] splitsByDepth = new int[8];
+    private int[] leavesByDepth = new int[8];
+    private long[] rowsByDepth = new long[8];
+    private double[] scoreByDepth = new double[8];
+    private int maxDepth = -1;
+
+    SplitStatistics(List<String> attributes, long rootRows) {
+        this.attributes = Collections.unmodifiableList(attributes);
+        this.weightedDecrease = new double[attributes.size()];
+        this.splitCounts = new int[attributes.size()];
+        this.rootRows = rootRows;
+    }
+
+    void recordSplit(int attribute, int depth, long rows, double score, double impurityDecrease) {
+        ensureDepth(depth);
+        weightedDecrease[attribute] += rows * impurityDecrease;
+        splitCounts[attribute]++;
+        splitsByDepth[depth]++;
+        rowsByDepth[depth] += rows;
+        scoreByDepth[depth] += score;
+    }
+
+    void recordLeaf(int depth) {
+        ensureDepth(depth);
+        leavesByDepth[depth]++;
+    }
+
+    private void ensureDepth(int depth) {
+        if (depth >= splitsByDepth.length) {
+            int length = Math.max(depth + 1, splitsByDepth.length * 2);
+            splitsByDepth = Arrays.copyOf(splitsByDepth, length);
+            leavesByDepth = Arrays.copyOf(leavesByDepth, length);
+            rowsByDepth = Arrays.copyOf(rowsByDepth, length);
+            scoreByDepth = Arrays.copyOf(scoreByDepth, length);
+        }
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    // Attributes in the order of the per-attribute arrays
+    public List<String> getAttributes() {
+        return attributes;
+    }
+
+    // Impurity decrease per attribute, summed over its splits and weighted by each split's share of the rows
+    public double[] getImpurityDecrease() {
+        double[] decrease = new double[weightedDecrease.length];
+        for (int a = 0; a < decrease.length; a++) {
+            decrease[a] = rootRows == 0 ? 0.0 : weightedDecrease[a] / rootRows;
+        }
+        return decrease;
+    }
+
+    // Impurity decrease per attribute normalized to sum to one
+    public double[] getImportances() {
+        double[] importances = getImpurityDecrease();
+        double sum = 0.0;
+        for (double importance : importances) {
+            sum += importance;
+        }
+        for (int a = 0; a < importances.length; a++) {
+            importances[a] = sum == 0 ? 0.0 : importances[a] / sum;
+        }
+        return importances;
+    }
+
+    // Attributes with their importances, most important first
+    public Map<String, Double> getImportancesByAttribute() {
+        double[] importances = getImportances();
+        Integer[] order = new Integer[importances.length];
+        for (int a = 0; a < order.length; a++) {
+            order[a] = a;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(importances[y], importances[x]));
+        Map<String, Double> byAttribute = new LinkedHashMap<>();
+        for (int a : order) {
+            byAttribute.put(attributes.get(a), importances[a]);
+        }
+        return byAttribute;
+    }
+
+    public int[] getSplitCounts() {
+        return splitCounts.clone();
+    }
+
+    // Deepest depth holding a split or leaf, or -1 before any node was recorded
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getSplitCount(int depth) {
+        return depth <= maxDepth ? splitsByDepth[depth] : 0;
+    }
+
+    public int getLeafCount(int depth) {
+        return depth <= maxDepth ? leavesByDepth[depth] : 0;
+    }
+
+    // Training rows reaching the splits at the depth
+    public long getSplitRows(int depth) {
+        return depth <= maxDepth ? rowsByDepth[depth] : 0;
+    }
+
+    // Mean criterion score of the splits at the depth
+    public double getMeanScore(int depth) {
+        int splits = getSplitCount(depth);
+        return splits == 0 ? 0.0 : scoreByDepth[depth] / splits;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Importances: ").append(getImportancesByAttribute()).append('\n');
+        for (int d = 0; d <= maxDepth; d++) {
+            sb.append(String.format("Depth %d: splits=%d, leaves=%d, rows=%d, meanScore=%.4f%n",
+                    d, getSplitCount(d), getLeafCount(d), getSplitRows(d), getMeanScore(d)));
+        }
+        return sb.toString();
+    }
+}
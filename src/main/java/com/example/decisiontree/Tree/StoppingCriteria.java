@@ -0,0 +1,72 @@
+package com.example.decisiontree.Tree;
+
+/**
+ * Limits on tree growth. A node becomes a leaf when any of these rules stops it from splitting.
+ * With a finite leaf budget the tree is grown best-first: the open node whose split gives the
+ * largest score weighted by its row count is expanded next, until the budget is used up.
+ */
+public class StoppingCriteria {
+
+    public static final int DEFAULT_MAX_DEPTH = 7;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int minSamplesSplit = 2;
+    private int minSamplesLeaf = 1;
+    private double minGain = 0.0;
+    private int maxLeaves = Integer.MAX_VALUE;
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = requireAtLeast(maxDepth, 0, "maxDepth");
+    }
+
+    // Nodes with fewer rows than this are not split
+    public int getMinSamplesSplit() {
+        return minSamplesSplit;
+    }
+
+    public void setMinSamplesSplit(int minSamplesSplit) {
+        this.minSamplesSplit = requireAtLeast(minSamplesSplit, 2, "minSamplesSplit");
+    }
+
+    // Splits that would leave any child with fewer rows than this are rejected
+    public int getMinSamplesLeaf() {
+        return minSamplesLeaf;
+    }
+
+    public void setMinSamplesLeaf(int minSamplesLeaf) {
+        this.minSamplesLeaf = requireAtLeast(minSamplesLeaf, 1, "minSamplesLeaf");
+    }
+
+    // Splits scoring below this value under the split criterion are rejected
+    public double getMinGain() {
+        return minGain;
+    }
+
+    public void setMinGain(double minGain) {
+        this.minGain = minGain;
+    }
+
+    // Maximum number of leaves; any finite value switches to best-first growth
+    public int getMaxLeaves() {
+        return maxLeaves;
+    }
+
+    public void setMaxLeaves(int maxLeaves) {
+        this.maxLeaves = requireAtLeast(maxLeaves, 1, "maxLeaves");
+    }
+
+    public boolean hasLeafBudget() {
+        return maxLeaves != Integer.MAX_VALUE;
+    }
+
+    private static int requireAtLeast(int value, int min, String name) {
+        if (value < min) {
+            throw new IllegalArgumentException(name + " must be at least " + min);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.decisiontree.Tree;
+
+/**
+ * Receives instrumentation events while a DecisionTree is being built.
+ * Register one with {@link DecisionTree#setTrainingListener(TrainingListener)}.
+ */
+public interface TrainingListener {
+
+    enum Phase {
+        // Pure-node checks and majority label computation
+        NODE_STATS,
+        // Gain (and entropy) computation over all candidate attributes
+        SPLIT_SCORING,
+        // Partitioning the rows by the chosen attribute
+        PARTITIONING,
+        // Building the child subtrees, inclusive of all phases below this node
+        RECURSION
+    }
+
+    // Called once before the root is built
+    default void onTrainingStarted(int rows, int attributes) {
+    }
+
+    // Called for every node created, with the number of training rows that reached it
+    void onNode(int depth, int rows, boolean leaf);
+
+    // Called when a phase finishes at a node; allocatedBytes is -1 when the JVM cannot measure it
+    void onPhase(Phase phase, int depth, long nanos, long allocatedBytes, long rowsScanned);
+
+    // Called once after the root is built
+    default void onTrainingFinished(long nanos) {
+    }
+}
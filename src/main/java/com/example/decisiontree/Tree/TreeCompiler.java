@@ -0,0 +1,202 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles a trained tree into a dedicated JVM class.
+ *
+ * The generated class implements {@link Predictor} with the whole tree inlined as nested
+ * {@code tableswitch} instructions on {@link AttributeEncoder} codes, and is loaded as a hidden
+ * class so the JIT treats it like any other final class and can inline it into the caller.
+ * Attribute values are only encoded along the path actually taken, and values a node did not see
+ * in training follow its most frequent child, so only trees using that UnseenValueStrategy can be
+ * compiled. Subtrees that would push a method past {@link #METHOD_BUDGET} bytes of bytecode go
+ * into their own methods, since HotSpot refuses to JIT-compile methods larger than 8000 bytes.
+ *
+ * The generated code mirrors the tree at compile time; recompile after pruning or retraining.
+ */
+public final class TreeCompiler implements Opcodes {
+
+    static final int METHOD_BUDGET = 7000;
+    private static final int LEAF_BYTES = 4;
+    private static final int CALL_BYTES = 6;
+
+    private static final String CLASS_NAME = "com/example/decisiontree/Tree/CompiledTree";
+    private static final String PREDICTOR = Type.getInternalName(Predictor.class);
+    private static final String ENCODER = Type.getInternalName(AttributeEncoder.class);
+    private static final String ENCODER_DESC = Type.getDescriptor(AttributeEncoder.class);
+    private static final String PREDICT_DESC = "(" + Type.getDescriptor(Mushroom.class) + ")Ljava/lang/String;";
+    private static final String CODE_DESC = "(I" + Type.getDescriptor(Mushroom.class) + ")I";
+
+    private final TreeNode root;
+    private final DecisionTree tree;
+    private final String fallbackLabel;
+    private final AttributeEncoder encoder;
+    private final Map<TreeNode, String> methodNames = new HashMap<>();
+    private final Deque<TreeNode> pendingMethods = new ArrayDeque<>();
+    private final Map<TreeNode, Integer> sizeEstimates = new HashMap<>();
+    private int methodBytes;
+
+    private TreeCompiler(DecisionTree tree) {
+        this.root = tree.getRoot();
+        this.tree = tree;
+        this.fallbackLabel = tree.getFallbackLabel();
+        this.encoder = new AttributeEncoder(root);
+    }
+
+    // Generates, loads and instantiates a predictor class for the tree's current structure
+    public static Predictor compile(DecisionTree tree) {
+        if (tree.getRoot() == null) {
+            throw new IllegalStateException("The tree has not been built");
+        }
+        tree.requireMostFrequentChildRouting("A compiled tree");
+        TreeCompiler compiler = new TreeCompiler(tree);
+        byte[] bytes = compiler.generate();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Predictor) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, AttributeEncoder.class))
+                    .invoke(compiler.encoder);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to load the compiled tree", e);
+        }
+    }
+
+    private byte[] generate() {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(V17, ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object", new String[]{PREDICTOR});
+        cw.visitField(ACC_PRIVATE | ACC_FINAL, "encoder", ENCODER_DESC, null, null).visitEnd();
+
+        MethodVisitor init = cw.visitMethod(0, "<init>", "(" + ENCODER_DESC + ")V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitVarInsn(ALOAD, 0);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitFieldInsn(PUTFIELD, CLASS_NAME, "encoder", ENCODER_DESC);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor predict = cw.visitMethod(ACC_PUBLIC, "predict", PREDICT_DESC, null, null);
+        predict.visitCode();
+        methodBytes = 0;
+        emitNode(predict, root);
+        predict.visitMaxs(0, 0);
+        predict.visitEnd();
+
+        while (!pendingMethods.isEmpty()) {
+            TreeNode subtree = pendingMethods.poll();
+            MethodVisitor mv = cw.visitMethod(ACC_PRIVATE, methodNames.get(subtree), PREDICT_DESC, null, null);
+            mv.visitCode();
+            methodBytes = 0;
+            emitNode(mv, subtree);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    // Emits code that returns the label for the subtree rooted at node
+    private void emitNode(MethodVisitor mv, TreeNode node) {
+        if (node.isLeaf()) {
+            mv.visitLdcInsn(tree.getLabel(node));
+            mv.visitInsn(ARETURN);
+            methodBytes += LEAF_BYTES;
+            return;
+        }
+        if (methodBytes > 0 && methodBytes + estimateSize(node) > METHOD_BUDGET) {
+            String name = methodNames.computeIfAbsent(node, n -> {
+                pendingMethods.add(n);
+                return "n" + methodNames.size();
+            });
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitMethodInsn(INVOKESPECIAL, CLASS_NAME, name, PREDICT_DESC, false);
+            mv.visitInsn(ARETURN);
+            methodBytes += CALL_BYTES;
+            return;
+        }
+        methodBytes += switchBytes(node);
+
+        int attribute = encoder.indexOf(node.getSplittingAttribute());
+        int maxCode = encoder.getCardinality(attribute) - 1;
+
+        // this.encoder.code(attribute, record)
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "encoder", ENCODER_DESC);
+        pushInt(mv, attribute);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEVIRTUAL, ENCODER, "code", CODE_DESC, false);
+
+        // Codes leading to the same child (e.g. one side of a binary split) share a single case body;
+        // unseen codes share the body of the most frequent child
+        Map<TreeNode, Label> childLabels = new LinkedHashMap<>();
+        TreeNode unseenChild = node.getMostFrequentChild();
+        Label fallback = unseenChild == null ? new Label() : childLabels.computeIfAbsent(unseenChild, c -> new Label());
+        Label[] cases = new Label[maxCode];
+        for (int code = 1; code <= maxCode; code++) {
+            TreeNode child = node.childFor(encoder.getValue(attribute, code));
+            cases[code - 1] = child == null ? fallback : childLabels.computeIfAbsent(child, c -> new Label());
+        }
+        mv.visitTableSwitchInsn(1, maxCode, fallback, cases);
+
+        for (Map.Entry<TreeNode, Label> child : childLabels.entrySet()) {
+            mv.visitLabel(child.getValue());
+            emitNode(mv, child.getKey());
+        }
+        if (unseenChild == null) {
+            mv.visitLabel(fallback);
+            mv.visitLdcInsn(fallbackLabel);
+            mv.visitInsn(ARETURN);
+        }
+    }
+
+    // Upper bound of the bytecode emitted for a subtree when fully inlined
+    private int estimateSize(TreeNode node) {
+        if (node.isLeaf()) {
+            return LEAF_BYTES;
+        }
+        Integer cached = sizeEstimates.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        long size = switchBytes(node);
+        for (TreeNode child : node.getChildNodes()) {
+            size += estimateSize(child);
+        }
+        int estimate = (int) Math.min(size, Integer.MAX_VALUE);
+        sizeEstimates.put(node, estimate);
+        return estimate;
+    }
+
+    // Encoder call, tableswitch with padding and jump table, and the fallback return
+    private int switchBytes(TreeNode node) {
+        int cases = encoder.getCardinality(encoder.indexOf(node.getSplittingAttribute())) - 1;
+        return 12 + 16 + 4 * cases + LEAF_BYTES;
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else {
+            mv.visitIntInsn(SIPUSH, value);
+        }
+    }
+}
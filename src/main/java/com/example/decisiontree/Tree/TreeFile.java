@@ -0,0 +1,237 @@
+package com.example.decisiontree.Tree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary file format for decision trees.
+ *
+ * Layout:
+ * <pre>
+ *   int    MAGIC
+ *   int    label count, UTF label * count
+ *   int    fallback class index, byte unseen value strategy
+ *   int    dictionary count
+ *   per dictionary: UTF attribute, int size, UTF value * size in code order
+ *   nodes in preorder, each: byte kind, byte class index, int count length, long count * length, then
+ *     MULTIWAY: int dictionary, int slots, per slot a byte present flag followed by the child
+ *     BINARY:   int dictionary, long in mask, long out mask, double threshold, in child, out child
+ * </pre>
+ * Each value dictionary is written once however many nodes share it. Reading through a
+ * {@link DictionaryPool} also shares identical dictionaries, attribute names and values across files.
+ */
+public final class TreeFile {
+
+    public static final int MAGIC = 0x44545432; // "DTT2"
+
+    private static final byte LEAF = 0;
+    private static final byte MULTIWAY = 1;
+    private static final byte BINARY = 2;
+
+    private TreeFile() {
+    }
+
+    /**
+     * Interns the dictionaries and strings of trees as they are read, so that trees trained on the
+     * same data hold one copy of each. Safe for concurrent readers; entries are kept for the life of
+     * the pool.
+     */
+    public static final class DictionaryPool {
+
+        private final Map<List<String>, Map<String, Integer>> dictionaries = new ConcurrentHashMap<>();
+        private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+        // Shared read-only dictionary mapping the values to their positions, keyed by attribute and values
+        Map<String, Integer> dictionary(String attribute, List<String> values) {
+            List<String> key = new ArrayList<>(values.size() + 1);
+            key.add(attribute);
+            key.addAll(values);
+            return dictionaries.computeIfAbsent(key, k -> {
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                for (String value : values) {
+                    dictionary.put(value, dictionary.size());
+                }
+                return Collections.unmodifiableMap(dictionary);
+            });
+        }
+
+        String intern(String value) {
+            String existing = strings.putIfAbsent(value, value);
+            return existing == null ? value : existing;
+        }
+
+        // Number of distinct dictionaries held
+        public int getDictionaryCount() {
+            return dictionaries.size();
+        }
+    }
+
+    public static void write(DecisionTree tree, Path filePath) throws IOException {
+        if (tree.getRoot() == null) {
+            throw new IllegalStateException("The tree has not been built");
+        }
+        // Dictionaries by identity, with the attribute of the first node using each
+        Map<Map<String, Integer>, Integer> ids = new IdentityHashMap<>();
+        List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        List<String> attributes = new ArrayList<>();
+        collectDictionaries(tree.getRoot(), ids, dictionaries, attributes);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            List<String> labels = tree.getLabelValues();
+            out.writeInt(labels.size());
+            for (String label : labels) {
+                out.writeUTF(label);
+            }
+            out.writeInt(tree.getFallbackClass());
+            out.writeByte(tree.getUnseenValueStrategy().ordinal());
+            out.writeInt(dictionaries.size());
+            for (int d = 0; d < dictionaries.size(); d++) {
+                String[] values = new String[dictionaries.get(d).size()];
+                for (Map.Entry<String, Integer> entry : dictionaries.get(d).entrySet()) {
+                    values[entry.getValue()] = entry.getKey();
+                }
+                out.writeUTF(attributes.get(d));
+                out.writeInt(values.length);
+                for (String value : values) {
+                    out.writeUTF(value);
+                }
+            }
+            writeNode(out, tree.getRoot(), ids);
+        }
+    }
+
+    private static void collectDictionaries(TreeNode node, Map<Map<String, Integer>, Integer> ids,
+                                            List<Map<String, Integer>> dictionaries, List<String> attributes) {
+        if (node.isLeaf()) {
+            return;
+        }
+        Map<String, Integer> dictionary = node.getValueIndex();
+        if (!ids.containsKey(dictionary)) {
+            ids.put(dictionary, dictionaries.size());
+            dictionaries.add(dictionary);
+            attributes.add(node.getSplittingAttribute());
+        }
+        for (TreeNode child : node.getChildNodes()) {
+            collectDictionaries(child, ids, dictionaries, attributes);
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, TreeNode node, Map<Map<String, Integer>, Integer> ids) throws IOException {
+        out.writeByte(node.isLeaf() ? LEAF : node.isBinarySplit() ? BINARY : MULTIWAY);
+        out.writeByte(node.getClassIndex());
+        long[] counts = node.getClassCounts();
+        out.writeInt(counts == null ? 0 : counts.length);
+        if (counts != null) {
+            for (long count : counts) {
+                out.writeLong(count);
+            }
+        }
+        if (node.isLeaf()) {
+            return;
+        }
+        out.writeInt(ids.get(node.getValueIndex()));
+        if (node.isBinarySplit()) {
+            out.writeLong(node.getInMask());
+            out.writeLong(node.getOutMask());
+            out.writeDouble(node.getThreshold());
+            writeNode(out, node.getInChild(), ids);
+            writeNode(out, node.getOutChild(), ids);
+            return;
+        }
+        TreeNode[] children = node.getChildren();
+        out.writeInt(children.length);
+        for (TreeNode child : children) {
+            out.writeBoolean(child != null);
+            if (child != null) {
+                writeNode(out, child, ids);
+            }
+        }
+    }
+
+    // Reads a tree with dictionaries of its own
+    public static DecisionTree read(Path filePath) throws IOException {
+        return read(filePath, new DictionaryPool());
+    }
+
+    // Reads a tree, sharing dictionaries and strings with the other trees read through the pool
+    public static DecisionTree read(Path filePath, DictionaryPool pool) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a decision tree file: " + filePath);
+            }
+            List<String> labels = new ArrayList<>();
+            int labelCount = in.readInt();
+            for (int c = 0; c < labelCount; c++) {
+                labels.add(pool.intern(in.readUTF()));
+            }
+            int fallbackClass = in.readInt();
+            DecisionTree.UnseenValueStrategy strategy = DecisionTree.UnseenValueStrategy.values()[in.readByte()];
+            int dictionaryCount = in.readInt();
+            String[] attributes = new String[dictionaryCount];
+            List<Map<String, Integer>> dictionaries = new ArrayList<>();
+            for (int d = 0; d < dictionaryCount; d++) {
+                attributes[d] = pool.intern(in.readUTF());
+                List<String> values = new ArrayList<>();
+                int size = in.readInt();
+                for (int v = 0; v < size; v++) {
+                    values.add(pool.intern(in.readUTF()));
+                }
+                dictionaries.add(pool.dictionary(attributes[d], values));
+            }
+            TreeNode root = readNode(in, attributes, dictionaries);
+
+            DecisionTree tree = new DecisionTree();
+            tree.setUnseenValueStrategy(strategy);
+            tree.restore(root, labels, fallbackClass);
+            return tree;
+        }
+    }
+
+    private static TreeNode readNode(DataInputStream in, String[] attributes, List<Map<String, Integer>> dictionaries) throws IOException {
+        byte kind = in.readByte();
+        TreeNode node = new TreeNode(in.readByte() & 0xFF);
+        int countLength = in.readInt();
+        if (countLength > 0) {
+            long[] counts = new long[countLength];
+            for (int c = 0; c < countLength; c++) {
+                counts[c] = in.readLong();
+            }
+            node.setClassCounts(counts);
+        }
+        if (kind == LEAF) {
+            return node;
+        }
+        int dictionary = in.readInt();
+        if (kind == BINARY) {
+            long inMask = in.readLong();
+            long outMask = in.readLong();
+            double threshold = in.readDouble();
+            TreeNode inChild = readNode(in, attributes, dictionaries);
+            TreeNode outChild = readNode(in, attributes, dictionaries);
+            node.setBinarySplit(attributes[dictionary], dictionaries.get(dictionary), inMask, outMask, inChild, outChild);
+            node.setThreshold(threshold);
+            return node;
+        }
+        TreeNode[] children = new TreeNode[in.readInt()];
+        for (int i = 0; i < children.length; i++) {
+            if (in.readBoolean()) {
+                children[i] = readNode(in, attributes, dictionaries);
+            }
+        }
+        node.setMultiwaySplit(attributes[dictionary], dictionaries.get(dictionary), children);
+        return node;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.decisiontree.Tree;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canonical SHA-256 hash of a trained model, for checking that two builds produced the same model,
+ * e.g. a parallel or batched build against the sequential one.
+ *
+ * The hash covers everything that decides a prediction (labels, splits, routing of unseen values,
+ * leaf classes and class counts, leaf values as exact bits) in preorder, with each node's values
+ * and children taken in natural value order. Value codes and child array layout are left out, so
+ * two trees that only number the values of an attribute differently hash the same.
+ */
+public final class TreeHash {
+
+    private static final byte LEAF = 0;
+    private static final byte MULTIWAY = 1;
+    private static final byte BINARY = 2;
+
+    private TreeHash() {
+    }
+
+    public static String of(DecisionTree tree) {
+        if (tree.getRoot() == null) {
+            throw new IllegalStateException("The tree has not been built");
+        }
+        return digest(out -> {
+            writeStrings(out, tree.getLabelValues());
+            out.writeInt(tree.getFallbackClass());
+            out.writeByte(tree.getUnseenValueStrategy().ordinal());
+            writeNode(out, tree.getRoot());
+        });
+    }
+
+    public static String of(GradientBoostedTrees model) {
+        return digest(out -> {
+            writeStrings(out, model.getLabelValues());
+            List<String> attributes = model.getAttributes();
+            List<List<String>> values = new ArrayList<>();
+            out.writeInt(attributes.size());
+            for (int a = 0; a < attributes.size(); a++) {
+                out.writeUTF(attributes.get(a));
+                values.add(byCode(model.getDictionaries().get(a)));
+                writeSorted(out, values.get(a));
+            }
+            out.writeLong(Double.doubleToLongBits(model.getBaseScore()));
+            out.writeInt(model.getTrees().size());
+            for (GradientBoostedTrees.RegressionTree tree : model.getTrees()) {
+                writeRegressionNode(out, tree, 0, attributes, values);
+            }
+        });
+    }
+
+    private static void writeNode(DataOutputStream out, TreeNode node) throws IOException {
+        out.writeByte(node.isLeaf() ? LEAF : node.isBinarySplit() ? BINARY : MULTIWAY);
+        out.writeByte(node.getClassIndex());
+        long[] counts = node.getClassCounts();
+        out.writeInt(counts == null ? 0 : counts.length);
+        if (counts != null) {
+            for (long count : counts) {
+                out.writeLong(count);
+            }
+        }
+        if (node.isLeaf()) {
+            return;
+        }
+        out.writeUTF(node.getSplittingAttribute());
+        if (node.isBinarySplit()) {
+            writeSorted(out, node.getInValues());
+            writeSorted(out, node.getOutValues());
+            out.writeLong(Double.doubleToLongBits(node.getThreshold()));
+            out.writeBoolean(node.getMostFrequentChild() == node.getInChild());
+            writeNode(out, node.getInChild());
+            writeNode(out, node.getOutChild());
+            return;
+        }
+        List<Map.Entry<String, TreeNode>> children = node.getChildrenList();
+        children.sort(Map.Entry.comparingByKey());
+        out.writeInt(children.size());
+        String mostFrequent = "";
+        for (Map.Entry<String, TreeNode> child : children) {
+            out.writeUTF(child.getKey());
+            writeNode(out, child.getValue());
+            if (child.getValue() == node.getMostFrequentChild()) {
+                mostFrequent = child.getKey();
+            }
+        }
+        out.writeUTF(mostFrequent);
+    }
+
+    private static void writeRegressionNode(DataOutputStream out, GradientBoostedTrees.RegressionTree tree, int node,
+                                            List<String> attributes, List<List<String>> values) throws IOException {
+        int attribute = tree.attribute[node];
+        if (attribute < 0) {
+            out.writeByte(LEAF);
+            out.writeLong(Double.doubleToLongBits(tree.value[node]));
+            return;
+        }
+        out.writeByte(BINARY);
+        out.writeUTF(attributes.get(attribute));
+        List<String> inValues = new ArrayList<>();
+        long[] mask = tree.masks[node];
+        List<String> codes = values.get(attribute);
+        for (int code = 0; code < codes.size() && (code >>> 6) < mask.length; code++) {
+            if (((mask[code >>> 6] >>> code) & 1L) != 0) {
+                inValues.add(codes.get(code));
+            }
+        }
+        writeSorted(out, inValues);
+        out.writeBoolean(tree.unseenIn[node]);
+        writeRegressionNode(out, tree, tree.in[node], attributes, values);
+        writeRegressionNode(out, tree, tree.out[node], attributes, values);
+    }
+
+    // Values of a dictionary by code
+    private static List<String> byCode(Map<String, Integer> dictionary) {
+        String[] values = new String[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            values[entry.getValue()] = entry.getKey();
+        }
+        return List.of(values);
+    }
+
+    private static void writeSorted(DataOutputStream out, Collection<String> values) throws IOException {
+        List<String> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        writeStrings(out, sorted);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static String digest(Encoder encoder) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            encoder.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -1,70 +1,282 @@
 package com.example.decisiontree.Tree;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a single node in the decision tree.
+ *
+ * Nodes are kept small, since large ensembles hold millions of them: a leaf is a class index and
+ * its class counts, without any child storage. An internal node holds its children in an array
+ * indexed by value code, with the value-to-code dictionary shared by every node splitting on the
+ * same attribute, and derives everything else (child weights, value lists) on demand.
  */
 public class TreeNode {
 
-    // If this node is a leaf, store the classification here (e.g., "EDIBLE" or "POISONOUS").
-    private String label;
+    // Class index of the node's label (majority class for internal nodes); read as unsigned, so up to 256 classes
+    private byte classIndex;
 
-    // If this node is not a leaf, store the attribute used for splitting .
+    // Attribute used for splitting, or null for a leaf
     private String splittingAttribute;
 
-    // Child nodes for each possible value of the splitting attribute (e.g., "CONVEX", "BELL", etc.).
-    private Map<String, TreeNode> children = new HashMap<>();
+    // Shared dictionary from the attribute's values to codes. Multiway splits index children by code;
+    // binary splits send values whose bit is set in inMask to the in child and those set in outMask to the
+    // out child. A value in neither mask did not reach this node, even if other nodes added it to the dictionary.
+    private Map<String, Integer> valueIndex;
+    private long inMask;
+    private long outMask;
+    private boolean binarySplit;
+
+    // Multiway: children by value code, null for values that did not reach this node; binary: {in, out}; leaf: null
+    private TreeNode[] children;
+    // Position in children of the child that received the most training rows
+    private int mostFrequentChild = -1;
+
+    // Upper edge of the in side when the binary split is a threshold on a binned numeric attribute
+    private double threshold = Double.NaN;
+
+    // Training rows per class that reached this node, indexed by class index
+    private long[] classCounts;
 
     // Constructor for a leaf node
-    public TreeNode(String label) {
-        this.label = label; // e.g. "EDIBLE" or "POISONOUS"
+    public TreeNode(int classIndex) {
+        setClassIndex(classIndex);
     }
 
-    // Optional constructor for an internal node
-    public TreeNode(String splittingAttribute, Map<String, TreeNode> children) {
+    // Turns this node into a multiway split; children[code] is the child for the value with that code in valueIndex
+    public void setMultiwaySplit(String splittingAttribute, Map<String, Integer> valueIndex, TreeNode[] children) {
         this.splittingAttribute = splittingAttribute;
+        this.valueIndex = valueIndex;
         this.children = children;
+        this.binarySplit = false;
+        this.inMask = 0L;
+        this.outMask = 0L;
+        updateMostFrequentChild();
+    }
+
+    // Creates an internal node splitting the attribute's values into two groups
+    public static TreeNode binarySplit(int classIndex, String splittingAttribute, Map<String, Integer> valueIndex,
+                                       long inMask, long outMask, TreeNode inChild, TreeNode outChild) {
+        TreeNode node = new TreeNode(classIndex);
+        node.setBinarySplit(splittingAttribute, valueIndex, inMask, outMask, inChild, outChild);
+        return node;
+    }
+
+    // Turns this node into a binary subset split; the masks hold the codes of the values sent to each child
+    public void setBinarySplit(String splittingAttribute, Map<String, Integer> valueIndex, long inMask, long outMask,
+                               TreeNode inChild, TreeNode outChild) {
+        if ((inMask & outMask) != 0) {
+            throw new IllegalArgumentException("Values cannot be sent to both children of a binary split");
+        }
+        this.splittingAttribute = splittingAttribute;
+        this.valueIndex = valueIndex;
+        this.inMask = inMask;
+        this.outMask = outMask;
+        this.children = new TreeNode[]{inChild, outChild};
+        this.binarySplit = true;
+        updateMostFrequentChild();
     }
 
+    // Turns this node into a leaf, releasing its children
+    public void makeLeaf(int classIndex) {
+        setClassIndex(classIndex);
+        this.splittingAttribute = null;
+        this.valueIndex = null;
+        this.inMask = 0L;
+        this.outMask = 0L;
+        this.binarySplit = false;
+        this.children = null;
+        this.mostFrequentChild = -1;
+        this.threshold = Double.NaN;
+    }
+
+    public long[] getClassCounts() {
+        return classCounts;
+    }
+
+    public void setClassCounts(long[] classCounts) {
+        this.classCounts = classCounts;
+    }
+
+    // Class index of the leaf's label, or of the majority class for an internal node
+    public int getClassIndex() {
+        return classIndex & 0xFF;
+    }
+
+    public void setClassIndex(int classIndex) {
+        if (classIndex < 0 || classIndex > 0xFF) {
+            throw new IllegalArgumentException("Class index out of range: " + classIndex);
+        }
+        this.classIndex = (byte) classIndex;
+    }
+
+    public boolean isThresholdSplit() {
+        return binarySplit && !Double.isNaN(threshold);
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean isBinarySplit() {
+        return binarySplit;
+    }
+
+    // Dictionary from the splitting attribute's values to codes, shared with other nodes; null for a leaf
+    public Map<String, Integer> getValueIndex() {
+        return valueIndex;
+    }
+
+    public long getInMask() {
+        return inMask;
+    }
 
-    public String getLabel() {
-        return label;
+    public long getOutMask() {
+        return outMask;
+    }
+
+    public TreeNode getInChild() {
+        return binarySplit ? children[0] : null;
+    }
+
+    public TreeNode getOutChild() {
+        return binarySplit ? children[1] : null;
+    }
+
+    // Known values routed to the in child of a binary split
+    public Set<String> getInValues() {
+        return valuesByMembership(true);
+    }
+
+    // Known values routed to the out child of a binary split
+    public Set<String> getOutValues() {
+        return valuesByMembership(false);
+    }
+
+    private Set<String> valuesByMembership(boolean in) {
+        long mask = in ? inMask : outMask;
+        Set<String> result = new LinkedHashSet<>();
+        for (Map.Entry<String, Integer> entry : valueIndex.entrySet()) {
+            if (((mask >>> entry.getValue()) & 1L) != 0) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    // Child to follow for the given value of the splitting attribute, or null if the value is unknown here
+    public TreeNode childFor(String value) {
+        Integer code = valueIndex.get(value);
+        if (code == null) {
+            return null;
+        }
+        if (binarySplit) {
+            if (((inMask >>> code) & 1L) != 0) {
+                return children[0];
+            }
+            return ((outMask >>> code) & 1L) != 0 ? children[1] : null;
+        }
+        return code < children.length ? children[code] : null;
+    }
+
+    // Raw child array: by value code for a multiway split, with nulls for values absent here; {in, out} for a binary one
+    public TreeNode[] getChildren() {
+        return children;
+    }
+
+    // Distinct child nodes, whatever the kind of split
+    public List<TreeNode> getChildNodes() {
+        List<TreeNode> nodes = new ArrayList<>();
+        if (children != null) {
+            for (TreeNode child : children) {
+                if (child != null) {
+                    nodes.add(child);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    // Values of a multiway split with their children, in code order; built on each call
+    public List<Map.Entry<String, TreeNode>> getChildrenList() {
+        List<Map.Entry<String, TreeNode>> entries = new ArrayList<>();
+        if (children != null && !binarySplit) {
+            for (Map.Entry<String, Integer> entry : valueIndex.entrySet()) {
+                int code = entry.getValue();
+                if (code < children.length && children[code] != null) {
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), children[code]));
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Values of a multiway split that have a child here
+    public Set<String> getChildValues() {
+        Set<String> values = new LinkedHashSet<>();
+        for (Map.Entry<String, TreeNode> entry : getChildrenList()) {
+            values.add(entry.getKey());
+        }
+        return values;
     }
 
     public boolean isLeaf() {
-        return label != null;
+        return splittingAttribute == null;
     }
 
     public String getSplittingAttribute() {
         return splittingAttribute;
     }
 
+    // Temporarily hides (null) or restores the split while keeping the children, e.g. to try pruning the node
     public void setSplittingAttribute(String splittingAttribute) {
         this.splittingAttribute = splittingAttribute;
     }
 
-    public Map<String, TreeNode> getChildren() {
-        return children;
+    // Child that received the most training rows; unseen and missing values are routed here
+    public TreeNode getMostFrequentChild() {
+        return mostFrequentChild < 0 ? null : children[mostFrequentChild];
     }
 
-    public void setChildren(Map<String, TreeNode> children) {
-        this.children = children;
+    // Training rows that went to all children together, for weighting getChildren() entries by their row counts
+    public long getChildRowTotal() {
+        long total = 0;
+        for (TreeNode child : children) {
+            if (child != null) {
+                total += child.getRowCount();
+            }
+        }
+        return total;
     }
 
-
-    public void addChild(String attributeValue, TreeNode childNode) {
-        this.children.put(attributeValue, childNode);
-    }
-
-    public List<Map.Entry<String, TreeNode>> getChildrenList() {
-        return new ArrayList<>(children.entrySet());
+    private void updateMostFrequentChild() {
+        mostFrequentChild = -1;
+        long best = -1;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != null && children[i].getRowCount() > best) {
+                best = children[i].getRowCount();
+                mostFrequentChild = i;
+            }
+        }
     }
 
-    public void setLabel(String label) {
-        this.label = label;
+    // Number of training rows that reached this node, or 0 if unknown
+    public long getRowCount() {
+        if (classCounts == null) {
+            return 0;
+        }
+        long rows = 0;
+        for (long count : classCounts) {
+            rows += count;
+        }
+        return rows;
     }
 }
@@ -2,6 +2,9 @@ module com.example.decisiontree {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.web;
+    requires jdk.httpserver;
+    requires jdk.management;
+    requires org.objectweb.asm;
 
     requires org.controlsfx.controls;
     requires com.dlsc.formsfx;
@@ -13,4 +16,8 @@ module com.example.decisiontree {
 
     opens com.example.decisiontree to javafx.fxml;
     exports com.example.decisiontree;
+    exports com.example.decisiontree.DataSet;
+    exports com.example.decisiontree.Metrics;
+    exports com.example.decisiontree.Serving;
+    exports com.example.decisiontree.Tree;
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.DataSet.Schema;
+import com.example.decisiontree.TestData;
+import com.example.decisiontree.Tree.DecisionTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class AttributeScreeningTest {
+
+    @Test
+    void dropsEachKindOfRedundantAttribute() {
+        // KEY decides the class; the others are constant, independent of the class, a renaming of KEY and a coarsening of KEY
+        Schema schema = new Schema("CLASS", List.of("KEY", "CONSTANT", "NOISE", "RENAMED", "COARSE"), List.of("X", "Y"));
+        List<Mushroom> data = new ArrayList<>();
+        String[] keys = {"a", "b", "c", "d"};
+        for (int i = 0; i < 16; i++) {
+            int key = i % 4;
+            data.add(new Mushroom(schema, key < 2 ? 0 : 1, keys[key], "same", i < 8 ? "p" : "q",
+                    keys[key].toUpperCase(), key == 3 ? "odd" : "even"));
+        }
+        AttributeScreening screening = AttributeScreening.screenLossy(data, schema.getAttributes());
+
+        assertEquals(List.of("KEY"), screening.getKept());
+        assertEquals(Map.of("CONSTANT", AttributeScreening.Reason.CONSTANT, "NOISE", AttributeScreening.Reason.NO_INFORMATION,
+                "RENAMED", AttributeScreening.Reason.DUPLICATE, "COARSE", AttributeScreening.Reason.DEPENDENT), screening.getDropped());
+        assertEquals(Map.of("RENAMED", "KEY", "COARSE", "KEY"), screening.getDeterminedBy());
+
+        // Screening that keeps the tree drops dependent attributes only under criteria that never prefer them
+        assertEquals(List.of("KEY", "NOISE", "COARSE"), AttributeScreening.screen(data, schema.getAttributes()).getKept());
+        assertEquals(List.of("KEY", "NOISE", "COARSE"),
+                AttributeScreening.screen(data, schema.getAttributes(), SplitCriterion.GAIN_RATIO).getKept());
+        assertEquals(List.of("KEY", "NOISE"), AttributeScreening.screen(data, schema.getAttributes(), SplitCriterion.GINI).getKept());
+    }
+
+    @Test
+    void screeningKeepsTheTreeUnderInformationGainAndGini() {
+        // The mushroom columns plus a coarsening of ODOR and a renamed copy of GILL-SIZE
+        Schema base = MushroomDataSet.SCHEMA;
+        List<String> attributes = new ArrayList<>(base.getAttributes());
+        attributes.add("ODOR-KIND");
+        attributes.add("GILL-SIZE-COPY");
+        Schema schema = new Schema(base.getLabelColumn(), attributes, base.getLabelValues());
+        MushroomDataSet mushrooms = TestData.mushrooms();
+        mushrooms.splitTrainingTest(0.5, 23);
+        List<Mushroom> data = new ArrayList<>();
+        for (Mushroom record : mushrooms.getTrainingData()) {
+            String[] values = new String[attributes.size()];
+            for (int a = 0; a < base.getAttributeCount(); a++) {
+                values[a] = record.getValue(a);
+            }
+            values[values.length - 2] = List.of("ALMOND", "ANISE", "NONE").contains(record.getValue("ODOR")) ? "pleasant" : "foul";
+            values[values.length - 1] = record.getValue("GILL-SIZE").toLowerCase();
+            data.add(new Mushroom(schema, record.getClassIndex(), values));
+        }
+        assertEquals(AttributeScreening.Reason.DEPENDENT,
+                AttributeScreening.screen(data, attributes, SplitCriterion.INFO_GAIN).getDropped().get("ODOR-KIND"));
+        assertFalse(AttributeScreening.screen(data, attributes, SplitCriterion.CHI_SQUARE).getDropped().containsKey("ODOR-KIND"));
+
+        for (SplitCriterion criterion : List.of(SplitCriterion.INFO_GAIN, SplitCriterion.GINI)) {
+            for (boolean binary : new boolean[]{false, true}) {
+                DecisionTree screened = new DecisionTree();
+                screened.setBinarySplits(binary);
+                screened.setScreenAttributes(true);
+                screened.buildTree(data, attributes, criterion);
+                DecisionTree unscreened = new DecisionTree();
+                unscreened.setBinarySplits(binary);
+                unscreened.buildTree(data, attributes, criterion);
+
+                assertEquals(unscreened.toString(), screened.toString(), criterion.getName() + (binary ? " binary" : " multiway"));
+            }
+        }
+    }
+
+    @Test
+    void datasetRowsAndStandaloneRecordsScreenAlike() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.splitTrainingTest(0.5, 21);
+        AttributeScreening fromRows = AttributeScreening.screenLossy(data.getTrainingData(), data.getAttributes());
+        AttributeScreening fromCopies = AttributeScreening.screenLossy(TestData.standaloneCopies(data.getTrainingData()),
+                data.getAttributes());
+
+        assertEquals(fromCopies.getKept(), fromRows.getKept());
+        assertEquals(fromCopies.getDropped(), fromRows.getDropped());
+        assertEquals(fromCopies.getDeterminedBy(), fromRows.getDeterminedBy());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.decisiontree.Metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContingencyTableTest {
+
+    private static final List<SplitCriterion> CRITERIA = List.of(
+            SplitCriterion.INFO_GAIN, SplitCriterion.GAIN_RATIO, SplitCriterion.GINI, SplitCriterion.CHI_SQUARE);
+
+    @Test
+    void twoClassGroupingCutsTheOrderByShare() {
+        // Ordered by share of the more frequent second class: a (0), c (0.8), b (1)
+        ContingencyTable table = new ContingencyTable(List.of("a", "b", "c"),
+                new long[][]{{5, 0}, {0, 7}, {2, 8}});
+
+        ContingencyTable.BinaryGrouping grouping = table.bestBinaryGrouping(SplitCriterion.GINI);
+        assertEquals(List.of("a"), grouping.getInValues());
+        assertEquals(groupScore(table, SplitCriterion.GINI, List.of("a")), grouping.getScore(), 1e-12);
+
+        // {a} holds 5 records and {b} 7, so at least 6 per side leaves only the second cut and 8 none
+        assertEquals(List.of("a", "c"), table.bestBinaryGrouping(SplitCriterion.GINI, 6).getInValues());
+        assertNull(table.bestBinaryGrouping(SplitCriterion.GINI, 8));
+        assertNull(new ContingencyTable(List.of("a"), new long[][]{{3, 4}}).bestBinaryGrouping(SplitCriterion.GINI));
+    }
+
+    @Test
+    void multiclassGroupingKeepsTheLastValueOut() {
+        // {a, d} is pure, so the best grouping is {b, c} against {a, d}
+        ContingencyTable table = new ContingencyTable(List.of("a", "b", "c", "d"),
+                new long[][]{{5, 0, 0}, {0, 5, 0}, {0, 0, 5}, {5, 0, 0}});
+
+        ContingencyTable.BinaryGrouping grouping = table.bestBinaryGrouping(SplitCriterion.GINI);
+        assertEquals(List.of("b", "c"), grouping.getInValues());
+        assertEquals(groupScore(table, SplitCriterion.GINI, List.of("b", "c")), grouping.getScore(), 1e-12);
+
+        // Only 2-2 groupings leave 10 records on each side
+        assertEquals(List.of("b", "c"), table.bestBinaryGrouping(SplitCriterion.GINI, 10).getInValues());
+        assertNull(table.bestBinaryGrouping(SplitCriterion.GINI, 11));
+    }
+
+    @Test
+    void multiclassGroupingMatchesExhaustiveSearch() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int trial = 0; trial < 200; trial++) {
+            ContingencyTable table = randomTable(random, 2 + random.nextInt(ContingencyTable.MAX_EXHAUSTIVE_VALUES - 1),
+                    3 + random.nextInt(2));
+            long minGroupSize = 1 + random.nextInt((int) Math.max(1, table.getTotal() / 3));
+            for (SplitCriterion criterion : CRITERIA) {
+                assertMatchesExhaustive(table, criterion, minGroupSize);
+            }
+        }
+    }
+
+    @Test
+    void twoClassOrderIsOptimalForConcaveImpurities() {
+        SplittableRandom random = new SplittableRandom(4);
+        for (int trial = 0; trial < 200; trial++) {
+            ContingencyTable table = randomTable(random, 2 + random.nextInt(10), 2);
+            assertMatchesExhaustive(table, SplitCriterion.INFO_GAIN, 1);
+            assertMatchesExhaustive(table, SplitCriterion.GINI, 1);
+        }
+    }
+
+    @Test
+    void thresholdTriesTheUnorderedValuesOnBothSides() {
+        List<String> order = List.of("1", "2", "3");
+        ContingencyTable missingOut = new ContingencyTable(List.of("3", "?", "1", "2"),
+                new long[][]{{0, 5}, {0, 4}, {5, 0}, {4, 1}});
+        assertEquals(List.of("1", "2"), missingOut.bestThreshold(SplitCriterion.INFO_GAIN, 1, order).getInValues());
+
+        ContingencyTable missingIn = new ContingencyTable(List.of("3", "?", "1", "2"),
+                new long[][]{{0, 5}, {4, 0}, {5, 0}, {4, 1}});
+        ContingencyTable.BinaryGrouping grouping = missingIn.bestThreshold(SplitCriterion.INFO_GAIN, 1, order);
+        assertEquals(List.of("1", "2", "?"), grouping.getInValues());
+        assertEquals(groupScore(missingIn, SplitCriterion.INFO_GAIN, grouping.getInValues()), grouping.getScore(), 1e-12);
+
+        // At least 5 records per side still admits the best threshold, 10 admits none
+        assertEquals(List.of("1", "2", "?"), missingIn.bestThreshold(SplitCriterion.INFO_GAIN, 5, order).getInValues());
+        assertNull(missingIn.bestThreshold(SplitCriterion.INFO_GAIN, 10, order));
+        assertNull(new ContingencyTable(List.of("1", "?"), new long[][]{{3, 1}, {1, 3}})
+                .bestThreshold(SplitCriterion.INFO_GAIN, 1, order));
+    }
+
+    private static void assertMatchesExhaustive(ContingencyTable table, SplitCriterion criterion, long minGroupSize) {
+        double best = Double.NEGATIVE_INFINITY;
+        int k = table.getValueCount();
+        for (int mask = 1; mask < (1 << k) - 1; mask++) {
+            List<String> in = new ArrayList<>();
+            long inTotal = 0;
+            for (int v = 0; v < k; v++) {
+                if ((mask & 1 << v) != 0) {
+                    in.add(table.getValue(v));
+                    inTotal += table.getValueTotal(v);
+                }
+            }
+            if (inTotal >= minGroupSize && table.getTotal() - inTotal >= minGroupSize) {
+                best = Math.max(best, groupScore(table, criterion, in));
+            }
+        }
+        ContingencyTable.BinaryGrouping grouping = table.bestBinaryGrouping(criterion, minGroupSize);
+        if (best == Double.NEGATIVE_INFINITY) {
+            assertNull(grouping);
+            return;
+        }
+        String message = criterion.getName() + " minGroupSize=" + minGroupSize;
+        assertEquals(best, grouping.getScore(), 1e-9, message);
+        assertEquals(best, groupScore(table, criterion, grouping.getInValues()), 1e-9, message);
+    }
+
+    // Score of the split into the given values and the rest, on a freshly built two-row table
+    private static double groupScore(ContingencyTable table, SplitCriterion criterion, List<String> inValues) {
+        int classCount = table.getClassCount();
+        long[][] groups = new long[2][classCount];
+        for (int v = 0; v < table.getValueCount(); v++) {
+            long[] group = groups[inValues.contains(table.getValue(v)) ? 0 : 1];
+            for (int c = 0; c < classCount; c++) {
+                group[c] += table.getCount(v, c);
+            }
+        }
+        return criterion.score(new ContingencyTable(List.of("IN", "OUT"), groups, classCount));
+    }
+
+    private static ContingencyTable randomTable(SplittableRandom random, int valueCount, int classCount) {
+        List<String> values = new ArrayList<>();
+        long[][] counts = new long[valueCount][classCount];
+        for (int v = 0; v < valueCount; v++) {
+            values.add("v" + v);
+            for (int c = 0; c < classCount; c++) {
+                counts[v][c] = random.nextInt(4) == 0 ? 0 : random.nextInt(1, 30);
+            }
+            counts[v][random.nextInt(classCount)]++;
+        }
+        return new ContingencyTable(values, counts, classCount);
+    }
+}
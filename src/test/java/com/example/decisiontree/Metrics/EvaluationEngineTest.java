@@ -0,0 +1,77 @@
+package com.example.decisiontree.Metrics;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.TestData;
+import com.example.decisiontree.Tree.DecisionTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvaluationEngineTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void labelsFromProbabilitiesMatchPredict() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.split(0.1, 0.1, 5);
+        // Enough rows for the parallel path
+        List<Mushroom> records = new ArrayList<>();
+        while (records.size() <= EvaluationEngine.CHUNK_ROWS) {
+            records.addAll(data.getFullData());
+        }
+        for (DecisionTree.UnseenValueStrategy strategy : DecisionTree.UnseenValueStrategy.values()) {
+            DecisionTree tree = new DecisionTree();
+            tree.setUnseenValueStrategy(strategy);
+            tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+            tree.prune(data.getValidationData());
+
+            ConfusionMatrix expected = new ConfusionMatrix(data.getSchema().getLabelValues());
+            for (Mushroom record : records) {
+                expected.add(data.getSchema().labelOf(record.getClassIndex()), tree.predict(record));
+            }
+            for (int threads : new int[]{1, 4}) {
+                ConfusionMatrix actual = EvaluationEngine.evaluate(tree, records, threads).confusionMatrix;
+                for (int a = 0; a < expected.getClassCount(); a++) {
+                    for (int p = 0; p < expected.getClassCount(); p++) {
+                        assertEquals(expected.getCount(a, p), actual.getCount(a, p), strategy + " threads=" + threads);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void csvRowsWithTheWrongFieldCountFail() throws IOException, URISyntaxException {
+        List<String> lines = Files.readAllLines(Paths.get(EvaluationEngineTest.class.getResource("/mushroom.csv").toURI()));
+        MushroomDataSet data = TestData.mushrooms();
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(data.getFullData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+
+        // Empty trailing values are missing values, not a short row; blank lines are skipped
+        Path valid = directory.resolve("valid.csv");
+        String emptyHabitat = lines.get(1).substring(0, lines.get(1).lastIndexOf(',') + 1);
+        Files.write(valid, List.of(lines.get(0), lines.get(1), "", emptyHabitat));
+        assertEquals(2, EvaluationEngine.evaluateCsv(tree, valid, data.getSchema(), Map.of(), 2).confusionMatrix.getTotal());
+
+        Path shortRow = directory.resolve("short.csv");
+        Files.write(shortRow, List.of(lines.get(0), lines.get(1), "EDIBLE,CONVEX,SMOOTH"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EvaluationEngine.evaluateCsv(tree, shortRow, data.getSchema(), Map.of(), 2));
+        assertTrue(e.getMessage().startsWith("Line 3 of "), e.getMessage());
+    }
+}
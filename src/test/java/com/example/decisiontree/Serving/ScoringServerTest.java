@@ -0,0 +1,120 @@
+package com.example.decisiontree.Serving;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import com.example.decisiontree.Tree.DecisionTree;
+import com.example.decisiontree.Tree.ModelRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScoringServerTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void enableNoDelay() {
+        // As ScoringServer.main does; otherwise every request waits on a delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @Test
+    void answersMatchInProcessPredictions() throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        data.split(0.1, 0.1, 17);
+        List<String> attributes = data.getAttributes();
+        ModelRegistry registry = new ModelRegistry(1 << 24);
+        List<DecisionTree> trees = new ArrayList<>();
+        for (DecisionTree.UnseenValueStrategy strategy : DecisionTree.UnseenValueStrategy.values()) {
+            DecisionTree tree = new DecisionTree();
+            tree.setUnseenValueStrategy(strategy);
+            tree.buildTree(data.getTrainingData(), attributes, SplitCriterion.INFO_GAIN);
+            tree.prune(data.getValidationData());
+            registry.register(strategy.name(), tree, directory.resolve(strategy + ".dtt"));
+            trees.add(tree);
+        }
+
+        // Test records as CSV, every tenth one with an unseen odor and a missing stalk root
+        List<Mushroom> records = new ArrayList<>();
+        StringBuilder csv = new StringBuilder(MushroomDataSet.LABEL_COLUMN);
+        for (String attribute : attributes) {
+            csv.append(',').append(attribute);
+        }
+        csv.append('\n');
+        List<Mushroom> test = data.getTestData();
+        for (int i = 0; i < test.size(); i++) {
+            String[] values = new String[attributes.size()];
+            for (int a = 0; a < values.length; a++) {
+                values[a] = test.get(i).getValue(attributes.get(a));
+                if (i % 10 == 0 && attributes.get(a).equals("ODOR")) {
+                    values[a] = "UNSEEN";
+                } else if (i % 10 == 0 && attributes.get(a).equals("STALK-ROOT")) {
+                    values[a] = Mushroom.MISSING;
+                }
+            }
+            records.add(new Mushroom(test.get(i).getSchema(), test.get(i).getClassIndex(), values));
+            csv.append(test.get(i).getLabel()).append(',').append(String.join(",", values)).append('\n');
+        }
+
+        try (ScoringServer server = new ScoringServer(registry)) {
+            server.setPort(0);
+            server.start();
+            for (DecisionTree tree : trees) {
+                String model = tree.getUnseenValueStrategy().name();
+                String[] lines = post("http://localhost:" + server.getPort() + "/predict/" + model, csv.toString()).split("\n");
+                assertEquals(records.size(), lines.length);
+                for (int i = 0; i < records.size(); i++) {
+                    assertEquals(tree.predict(records.get(i)), lines[i], model + " record " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void schemaCacheStaysBoundedUnderDistinctHeaders() throws IOException {
+        ModelRegistry registry = new ModelRegistry(1 << 24);
+        MushroomDataSet data = TestData.mushrooms();
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(data.getFullData(), data.getAttributes(), SplitCriterion.GINI);
+        registry.register("mushroom", tree, directory.resolve("mushroom.dtt"));
+
+        try (ScoringServer server = new ScoringServer(registry)) {
+            server.setPort(0);
+            server.start();
+            for (int i = 0; i < ScoringServer.MAX_CACHED_SCHEMAS + 50; i++) {
+                String body = "ODOR,EXTRA-" + i + "\nFOUL,x\n";
+                assertEquals("POISONOUS\n", post("http://localhost:" + server.getPort() + "/predict/mushroom", body));
+            }
+            assertEquals(ScoringServer.MAX_CACHED_SCHEMAS, server.getCachedSchemaCount());
+        }
+    }
+
+    private static String post(String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", ScoringServer.CSV);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.decisiontree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Fixtures shared by the tests: the bundled mushroom data and altered copies of records
+public final class TestData {
+
+    private TestData() {
+    }
+
+    // A fresh data set with the mushroom records; splitting it does not affect other tests
+    public static MushroomDataSet mushrooms() {
+        try {
+            MushroomDataSet dataSet = new MushroomDataSet();
+            dataSet.loadResource(MushroomDataSet.RESOURCE);
+            return dataSet;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Records holding their own values, so they are encoded by value rather than from a dataset's codes
+    public static List<Mushroom> standaloneCopies(List<Mushroom> records) {
+        List<Mushroom> result = new ArrayList<>();
+        for (Mushroom record : records) {
+            result.add(new Mushroom(record.getSchema(), record.getClassIndex(), values(record)));
+        }
+        return result;
+    }
+
+    // Copies of the records with a random attribute set to a value no tree has seen, or to missing
+    public static List<Mushroom> withUnseenValues(List<Mushroom> records, SplittableRandom random) {
+        List<Mushroom> result = new ArrayList<>();
+        for (Mushroom record : records) {
+            String[] values = values(record);
+            values[random.nextInt(values.length)] = random.nextBoolean() ? "never-seen" : Mushroom.MISSING;
+            result.add(new Mushroom(record.getSchema(), record.getClassIndex(), values));
+        }
+        return result;
+    }
+
+    private static String[] values(Mushroom record) {
+        String[] values = new String[record.getSchema().getAttributeCount()];
+        for (int a = 0; a < values.length; a++) {
+            values[a] = record.getValue(a);
+        }
+        return values;
+    }
+}
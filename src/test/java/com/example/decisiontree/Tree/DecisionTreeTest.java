@@ -0,0 +1,109 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecisionTreeTest {
+
+    @Test
+    void predictAgreesWithMostProbableClassAfterPruning() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.split(0.1, 0.1, 17);
+        for (DecisionTree.UnseenValueStrategy strategy : DecisionTree.UnseenValueStrategy.values()) {
+            DecisionTree tree = new DecisionTree();
+            tree.setUnseenValueStrategy(strategy);
+            tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+            tree.prune(data.getValidationData());
+
+            double[] probabilities = new double[tree.getClassCount()];
+            for (Mushroom record : data.getTestData()) {
+                tree.predictProba(record, probabilities);
+                assertEquals(tree.getLabelValues().get(argMax(probabilities)), tree.predict(record), strategy + " " + record);
+            }
+        }
+    }
+
+    @Test
+    void binarySplitsTreatValuesThatNeverReachedTheNodeAsUnseen(@TempDir Path dir) throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        data.split(0.2, 0.0, 19);
+        DecisionTree tree = new DecisionTree();
+        tree.setBinarySplits(true);
+        tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+
+        // Values of its splitting attribute that the training rows brought to each node
+        Map<TreeNode, Set<String>> reached = new IdentityHashMap<>();
+        for (Mushroom record : data.getTrainingData()) {
+            TreeNode node = tree.getRoot();
+            while (!node.isLeaf()) {
+                String value = record.getValue(node.getSplittingAttribute());
+                reached.computeIfAbsent(node, n -> new HashSet<>()).add(value);
+                node = node.childFor(value);
+            }
+        }
+
+        int unseen = 0;
+        for (Map.Entry<TreeNode, Set<String>> entry : reached.entrySet()) {
+            TreeNode node = entry.getKey();
+            Set<String> known = new HashSet<>(node.getInValues());
+            known.addAll(node.getOutValues());
+            assertEquals(entry.getValue(), known, node.getSplittingAttribute());
+            for (String value : node.getValueIndex().keySet()) {
+                if (node.getInValues().contains(value)) {
+                    assertSame(node.getInChild(), node.childFor(value));
+                } else if (node.getOutValues().contains(value)) {
+                    assertSame(node.getOutChild(), node.childFor(value));
+                } else {
+                    assertNull(node.childFor(value), value);
+                    unseen++;
+                }
+            }
+        }
+        assertTrue(unseen > 0, "no binary node missed any value of its attribute");
+
+        Path file = dir.resolve("tree.bin");
+        TreeFile.write(tree, file);
+        assertEquals(masks(tree.getRoot(), new ArrayList<>()), masks(TreeFile.read(file).getRoot(), new ArrayList<>()));
+    }
+
+    // In and out masks of the binary nodes in preorder
+    private static List<String> masks(TreeNode node, List<String> masks) {
+        if (node.isBinarySplit()) {
+            masks.add(node.getInMask() + "/" + node.getOutMask());
+        }
+        if (!node.isLeaf()) {
+            for (TreeNode child : node.getChildNodes()) {
+                masks(child, masks);
+            }
+        }
+        return masks;
+    }
+
+    private static int argMax(double[] values) {
+        int best = 0;
+        for (int c = 1; c < values.length; c++) {
+            if (values[c] > values[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+}
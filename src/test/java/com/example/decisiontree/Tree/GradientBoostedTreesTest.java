@@ -0,0 +1,36 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GradientBoostedTreesTest {
+
+    @Test
+    void datasetRowsAndStandaloneRecordsTrainTheSameModel() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.split(0.6, 0.2, 9);
+        GradientBoostedTrees fromRows = boosted();
+        fromRows.fit(data.getTrainingData(), data.getValidationData(), data.getAttributes());
+        GradientBoostedTrees fromCopies = boosted();
+        fromCopies.fit(TestData.standaloneCopies(data.getTrainingData()), TestData.standaloneCopies(data.getValidationData()),
+                data.getAttributes());
+
+        assertEquals(fromRows.getDictionaries(), fromCopies.getDictionaries());
+        assertEquals(TreeHash.of(fromRows), TreeHash.of(fromCopies));
+        assertEquals(fromRows.getTreeCount(), fromCopies.getTreeCount());
+        for (Mushroom record : data.getTestData()) {
+            assertEquals(fromRows.score(record), fromCopies.score(record));
+        }
+    }
+
+    private static GradientBoostedTrees boosted() {
+        GradientBoostedTrees model = new GradientBoostedTrees();
+        model.setRounds(20);
+        model.setThreads(1);
+        return model;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private static DecisionTree train(MushroomDataSet data, SplitCriterion criterion, boolean binary) {
+        DecisionTree tree = new DecisionTree();
+        tree.setBinarySplits(binary);
+        tree.buildTree(data.getFullData(), data.getAttributes(), criterion);
+        return tree;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudgetAndReloads() throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        DecisionTree a = train(data, SplitCriterion.INFO_GAIN, false);
+        DecisionTree b = train(data, SplitCriterion.GINI, true);
+        long bytesA = ModelRegistry.estimateBytes(a.getRoot());
+        long bytesB = ModelRegistry.estimateBytes(b.getRoot());
+
+        // Room for either model but not both
+        ModelRegistry registry = new ModelRegistry(Math.max(bytesA, bytesB) + Math.min(bytesA, bytesB) / 2);
+        registry.register("a", a, directory.resolve("a.dtt"));
+        registry.register("b", b, directory.resolve("b.dtt"));
+        assertFalse(registry.isLoaded("a"));
+
+        DecisionTree loadedA = registry.get("a");
+        assertTrue(registry.isLoaded("a"));
+        assertSame(loadedA, registry.get("a"));
+        assertEquals(1, registry.getHits());
+
+        registry.get("b");
+        assertTrue(registry.isLoaded("b"));
+        assertFalse(registry.isLoaded("a"));
+        assertEquals(1, registry.getEvictions());
+        assertEquals(bytesB, registry.getResidentBytes());
+
+        DecisionTree reloadedA = registry.get("a");
+        assertNotSame(loadedA, reloadedA);
+        assertEquals(3, registry.getLoads());
+        assertFalse(registry.isLoaded("b"));
+        assertTrue(registry.getResidentBytes() <= registry.getMemoryBudget());
+        for (Mushroom record : data.getFullData()) {
+            assertEquals(a.predict(record), registry.predict("a", record));
+        }
+    }
+
+    @Test
+    void reRegisteringBumpsVersionAndServesNewModel() throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        DecisionTree first = train(data, SplitCriterion.INFO_GAIN, false);
+        DecisionTree second = train(data, SplitCriterion.GINI, true);
+        ModelRegistry registry = new ModelRegistry(Long.MAX_VALUE);
+        assertEquals(0, registry.getVersion("m"));
+
+        registry.register("m", first, directory.resolve("first.dtt"));
+        assertEquals(1, registry.getVersion("m"));
+        assertEquals(TreeHash.of(first), TreeHash.of(registry.get("m")));
+
+        registry.register("m", second, directory.resolve("second.dtt"));
+        assertEquals(2, registry.getVersion("m"));
+        assertFalse(registry.isLoaded("m"));
+        assertEquals(TreeHash.of(second), TreeHash.of(registry.get("m")));
+        assertEquals(ModelRegistry.estimateBytes(second.getRoot()), registry.getResidentBytes());
+        assertEquals(List.of("m"), List.copyOf(registry.getKeys()));
+    }
+
+    @Test
+    void unknownAndUnregisteredKeysAreRejected() throws IOException {
+        ModelRegistry registry = new ModelRegistry(Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> registry.get("missing"));
+
+        registry.register("m", train(TestData.mushrooms(), SplitCriterion.INFO_GAIN, false), directory.resolve("m.dtt"));
+        registry.get("m");
+        assertTrue(registry.unregister("m"));
+        assertFalse(registry.unregister("m"));
+        assertEquals(0, registry.getResidentBytes());
+        assertThrows(IllegalArgumentException.class, () -> registry.get("m"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.DataSet.Schema;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeCompilerTest {
+
+    @Test
+    void multiwayAndBinaryMushroomTreesAgreeWithPredict() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.splitTrainingTest(0.3, 11);
+        for (boolean binary : new boolean[]{false, true}) {
+            DecisionTree tree = new DecisionTree();
+            tree.setBinarySplits(binary);
+            tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+            assertAgrees(tree, data.getFullData());
+            assertAgrees(tree, TestData.withUnseenValues(data.getTestData(), new SplittableRandom(binary ? 1 : 2)));
+        }
+    }
+
+    @Test
+    void largeTreeIsSplitIntoMethodsAndAgreesWithPredict() {
+        Schema schema = randomSchema(10);
+        List<Mushroom> training = randomRecords(schema, 30_000, 8, new SplittableRandom(5));
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(training, schema.getAttributes(), SplitCriterion.INFO_GAIN);
+        assertTrue(size(tree.getRoot()) > 10_000, "tree too small to need splitting: " + size(tree.getRoot()));
+
+        Predictor compiled = TreeCompiler.compile(tree);
+        int subtreeMethods = 0;
+        for (Method method : compiled.getClass().getDeclaredMethods()) {
+            if (method.getName().matches("n\\d+")) {
+                subtreeMethods++;
+            }
+        }
+        assertTrue(subtreeMethods > 1, "expected subtree methods, got " + subtreeMethods);
+        assertAgrees(compiled, tree, training);
+        assertAgrees(compiled, tree, TestData.withUnseenValues(randomRecords(schema, 5_000, 9, new SplittableRandom(6)), new SplittableRandom(7)));
+    }
+
+    @Test
+    void deepBinaryTreeAgreesWithPredict() {
+        Schema schema = randomSchema(6);
+        List<Mushroom> training = randomRecords(schema, 20_000, 12, new SplittableRandom(8));
+        DecisionTree tree = new DecisionTree();
+        tree.setBinarySplits(true);
+        StoppingCriteria stopping = new StoppingCriteria();
+        stopping.setMaxDepth(40);
+        tree.setStoppingCriteria(stopping);
+        tree.buildTree(training, schema.getAttributes(), SplitCriterion.GINI);
+        assertTrue(depth(tree.getRoot()) >= 20, "tree too shallow: " + depth(tree.getRoot()));
+
+        assertAgrees(tree, training);
+        assertAgrees(tree, TestData.withUnseenValues(randomRecords(schema, 5_000, 13, new SplittableRandom(9)), new SplittableRandom(10)));
+    }
+
+    private static void assertAgrees(DecisionTree tree, List<Mushroom> records) {
+        assertAgrees(TreeCompiler.compile(tree), tree, records);
+    }
+
+    private static void assertAgrees(Predictor compiled, DecisionTree tree, List<Mushroom> records) {
+        for (Mushroom record : records) {
+            assertEquals(tree.predict(record), compiled.predict(record), record.toString());
+        }
+    }
+
+    // Three classes, with the label depending on the first two attributes plus noise, so the tree grows large
+    private static Schema randomSchema(int attributes) {
+        List<String> names = new ArrayList<>();
+        for (int a = 0; a < attributes; a++) {
+            names.add("A" + a);
+        }
+        return new Schema("CLASS", names, List.of("X", "Y", "Z"));
+    }
+
+    private static List<Mushroom> randomRecords(Schema schema, int rows, int valuesPerAttribute, SplittableRandom random) {
+        List<Mushroom> records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String[] values = new String[schema.getAttributeCount()];
+            for (int a = 0; a < values.length; a++) {
+                values[a] = "v" + random.nextInt(valuesPerAttribute);
+            }
+            int classIndex = random.nextInt(4) == 0 ? random.nextInt(3) : (values[0].hashCode() + values[1].hashCode()) % 3;
+            records.add(new Mushroom(schema, classIndex, values));
+        }
+        return records;
+    }
+
+    private static int size(TreeNode node) {
+        int size = 1;
+        for (TreeNode child : node.getChildNodes()) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static int depth(TreeNode node) {
+        int depth = 0;
+        for (TreeNode child : node.getChildNodes()) {
+            depth = Math.max(depth, depth(child) + 1);
+        }
+        return depth;
+    }
+}
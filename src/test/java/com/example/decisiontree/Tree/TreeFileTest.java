@@ -0,0 +1,81 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TreeFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsPredictionsAndHash() throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        data.splitTrainingTest(0.6, 3);
+        for (boolean binary : new boolean[]{false, true}) {
+            DecisionTree tree = new DecisionTree();
+            tree.setBinarySplits(binary);
+            tree.setUnseenValueStrategy(DecisionTree.UnseenValueStrategy.CLASS_DISTRIBUTION);
+            tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.GINI);
+            Path file = directory.resolve("tree-" + binary + ".dtt");
+            TreeFile.write(tree, file);
+
+            DecisionTree read = TreeFile.read(file);
+            assertEquals(TreeHash.of(tree), TreeHash.of(read));
+            assertEquals(tree.getLabelValues(), read.getLabelValues());
+            assertEquals(tree.getUnseenValueStrategy(), read.getUnseenValueStrategy());
+            double[] expected = new double[tree.getClassCount()];
+            double[] actual = new double[read.getClassCount()];
+            for (Mushroom record : data.getTestData()) {
+                assertEquals(tree.predict(record), read.predict(record));
+                tree.predictProba(record, expected);
+                read.predictProba(record, actual);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    void treesReadThroughOnePoolShareDictionaries() throws IOException {
+        MushroomDataSet data = TestData.mushrooms();
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(data.getFullData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+        Path file = directory.resolve("tree.dtt");
+        TreeFile.write(tree, file);
+
+        TreeFile.DictionaryPool pool = new TreeFile.DictionaryPool();
+        DecisionTree first = TreeFile.read(file, pool);
+        DecisionTree second = TreeFile.read(file, pool);
+        assertSame(first.getRoot().getValueIndex(), second.getRoot().getValueIndex());
+    }
+
+    @Test
+    void rejectsFileWithBadMagic() throws IOException {
+        Path file = directory.resolve("bad.dtt");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(TreeFile.MAGIC + 1);
+            out.writeInt(0);
+        }
+        IOException e = assertThrows(IOException.class, () -> TreeFile.read(file));
+        assertEquals("Not a decision tree file: " + file, e.getMessage());
+    }
+
+    @Test
+    void rejectsTreeThatWasNotBuilt() {
+        assertThrows(IllegalStateException.class, () -> TreeFile.write(new DecisionTree(), directory.resolve("empty.dtt")));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class TreeHashTest {
+
+    @Test
+    void reproducibleBuildsHashTheSameForAnyRowAndAttributeOrder() {
+        MushroomDataSet data = TestData.mushrooms();
+        List<Mushroom> rows = data.getFullData();
+        List<Mushroom> reversedRows = reversed(rows);
+        List<String> reversedAttributes = reversed(data.getAttributes());
+        for (boolean binary : new boolean[]{false, true}) {
+            for (SplitCriterion criterion : List.of(SplitCriterion.INFO_GAIN, SplitCriterion.GINI)) {
+                DecisionTree tree = reproducibleTree(binary);
+                tree.buildTree(rows, data.getAttributes(), criterion);
+                DecisionTree reversedTree = reproducibleTree(binary);
+                reversedTree.buildTree(reversedRows, reversedAttributes, criterion);
+                assertEquals(TreeHash.of(tree), TreeHash.of(reversedTree), criterion.getName() + " binary=" + binary);
+            }
+        }
+    }
+
+    @Test
+    void boostedHashIgnoresValueCodeOrder() {
+        MushroomDataSet data = TestData.mushrooms();
+        GradientBoostedTrees model = new GradientBoostedTrees();
+        model.setRounds(5);
+        model.fit(data.getFullData(), data.getAttributes());
+        String hash = TreeHash.of(model);
+        List<String> predictions = new ArrayList<>();
+        data.getFullData().forEach(record -> predictions.add(model.predict(record)));
+
+        reverseCodes(model);
+        List<String> renumbered = new ArrayList<>();
+        data.getFullData().forEach(record -> renumbered.add(model.predict(record)));
+        assertEquals(predictions, renumbered);
+        assertEquals(hash, TreeHash.of(model));
+    }
+
+    @Test
+    void treeHashIgnoresChildOrder() {
+        // Children are kept in the order their values were first seen in, which reversing the rows changes
+        MushroomDataSet data = TestData.mushrooms();
+        List<Mushroom> rows = data.getFullData();
+        DecisionTree tree = new DecisionTree();
+        tree.buildTree(rows, data.getAttributes(), SplitCriterion.INFO_GAIN);
+        DecisionTree reversedTree = new DecisionTree();
+        reversedTree.buildTree(reversed(rows), data.getAttributes(), SplitCriterion.INFO_GAIN);
+        assertNotEquals(childOrder(tree.getRoot()), childOrder(reversedTree.getRoot()));
+        assertEquals(TreeHash.of(tree), TreeHash.of(reversedTree));
+    }
+
+    private static DecisionTree reproducibleTree(boolean binary) {
+        DecisionTree tree = new DecisionTree();
+        tree.setBinarySplits(binary);
+        tree.setReproducible(true);
+        return tree;
+    }
+
+    // Numbers every attribute's values in reverse, rewriting the split masks to match
+    private static void reverseCodes(GradientBoostedTrees model) {
+        List<Map<String, Integer>> dictionaries = model.getDictionaries();
+        for (Map<String, Integer> dictionary : dictionaries) {
+            int size = dictionary.size();
+            dictionary.replaceAll((value, code) -> size - 1 - code);
+        }
+        for (GradientBoostedTrees.RegressionTree tree : model.getTrees()) {
+            for (int node = 0; node < tree.attribute.length; node++) {
+                if (tree.attribute[node] < 0) {
+                    continue;
+                }
+                int size = dictionaries.get(tree.attribute[node]).size();
+                long[] mask = tree.masks[node];
+                long[] reversed = new long[(size + 63) >>> 6];
+                for (int code = 0; code < size && (code >>> 6) < mask.length; code++) {
+                    if (((mask[code >>> 6] >>> code) & 1L) != 0) {
+                        int renumbered = size - 1 - code;
+                        reversed[renumbered >>> 6] |= 1L << renumbered;
+                    }
+                }
+                tree.masks[node] = reversed;
+            }
+        }
+    }
+
+    private static List<String> childOrder(TreeNode node) {
+        List<String> order = new ArrayList<>();
+        node.getChildrenList().forEach(child -> order.add(child.getKey()));
+        return order;
+    }
+
+    private static <T> List<T> reversed(List<T> list) {
+        List<T> copy = new ArrayList<>(list);
+        Collections.reverse(copy);
+        return copy;
+    }
+}
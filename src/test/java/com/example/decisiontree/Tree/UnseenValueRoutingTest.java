@@ -0,0 +1,44 @@
+package com.example.decisiontree.Tree;
+
+import com.example.decisiontree.DataSet.Mushroom;
+import com.example.decisiontree.DataSet.MushroomDataSet;
+import com.example.decisiontree.Metrics.SplitCriterion;
+import com.example.decisiontree.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnseenValueRoutingTest {
+
+    @Test
+    void flattenedFormsAgreeWithPredictOnlyUnderMostFrequentChild() {
+        MushroomDataSet data = TestData.mushrooms();
+        data.splitTrainingTest(0.2, 13);
+        List<Mushroom> records = TestData.withUnseenValues(data.getFullData(), new SplittableRandom(14));
+        for (boolean binary : new boolean[]{false, true}) {
+            for (DecisionTree.UnseenValueStrategy strategy : DecisionTree.UnseenValueStrategy.values()) {
+                DecisionTree tree = new DecisionTree();
+                tree.setBinarySplits(binary);
+                tree.setUnseenValueStrategy(strategy);
+                tree.buildTree(data.getTrainingData(), data.getAttributes(), SplitCriterion.INFO_GAIN);
+                if (strategy != DecisionTree.UnseenValueStrategy.MOST_FREQUENT_CHILD) {
+                    assertThrows(IllegalArgumentException.class, () -> LookupTableClassifier.compile(tree));
+                    assertThrows(IllegalArgumentException.class, () -> RuleSet.from(tree));
+                    assertThrows(IllegalArgumentException.class, () -> TreeCompiler.compile(tree));
+                    continue;
+                }
+                List<Predictor> forms = List.of(LookupTableClassifier.compile(tree), RuleSet.from(tree), TreeCompiler.compile(tree));
+                for (Mushroom record : records) {
+                    String expected = tree.predict(record);
+                    for (Predictor form : forms) {
+                        assertEquals(expected, form.predict(record), form.getClass().getSimpleName() + " binary=" + binary);
+                    }
+                }
+            }
+        }
+    }
+}